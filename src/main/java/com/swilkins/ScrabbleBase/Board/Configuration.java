@@ -1,5 +1,6 @@
 package com.swilkins.ScrabbleBase.Board;
 
+import com.swilkins.ScrabbleBase.Board.State.BoardLayout;
 import com.swilkins.ScrabbleBase.Board.State.BoardSquare;
 import com.swilkins.ScrabbleBase.Board.State.Multiplier;
 import com.swilkins.ScrabbleBase.Board.State.Tile;
@@ -121,6 +122,18 @@ public final class Configuration {
     return board;
   }
 
+  /**
+   * @return the multipliers of the standard board, shared by every <code>CompactBoard</code> that uses them
+   */
+  public static BoardLayout getStandardLayout() {
+    return StandardLayout.INSTANCE;
+  }
+
+  // Built on first use, once the multiplier mapping below has been filled
+  private static final class StandardLayout {
+    private static final BoardLayout INSTANCE = new BoardLayout(getStandardBoard());
+  }
+
   public static final List<Map<Integer, Multiplier>> standardMultiplierMapping = new ArrayList<>();
 
   static {
@@ -0,0 +1,112 @@
+package com.swilkins.ScrabbleBase.Board.State;
+
+import java.util.Arrays;
+
+/**
+ * The multipliers of every square of a board, flattened row by row into one array for letters
+ * and one for words. A layout never changes, so every <code>CompactBoard</code> with the same
+ * squares can share one; see <code>Configuration.getStandardLayout()</code>.
+ */
+public final class BoardLayout {
+
+  // The most squares a board can have across, one for every bit of a CompactBoard's bitboards
+  public static final int MAX_DIMENSIONS = Long.SIZE;
+
+  private final int dimensions;
+  private final byte[] letterMultipliers;
+  private final byte[] wordMultipliers;
+  // The multipliers of each square, for a board rebuilt from this layout
+  private final Multiplier[] multipliers;
+
+  /**
+   * @throws IllegalArgumentException if the board is not square or wider than <code>MAX_DIMENSIONS</code>,
+   *                                  or a square has no multiplier
+   */
+  public BoardLayout(BoardSquare[][] board) throws IllegalArgumentException {
+    if (board.length > MAX_DIMENSIONS) {
+      throw new IllegalArgumentException();
+    }
+    this.dimensions = board.length;
+    int squares = this.dimensions * this.dimensions;
+    this.letterMultipliers = new byte[squares];
+    this.wordMultipliers = new byte[squares];
+    this.multipliers = new Multiplier[squares];
+    for (int y = 0; y < this.dimensions; y++) {
+      if (board[y].length != this.dimensions) {
+        throw new IllegalArgumentException();
+      }
+      for (int x = 0; x < this.dimensions; x++) {
+        Multiplier multiplier = board[y][x].getMultiplier();
+        if (multiplier == null || multiplier.getLetterValue() != (byte) multiplier.getLetterValue() ||
+                multiplier.getWordValue() != (byte) multiplier.getWordValue()) {
+          throw new IllegalArgumentException();
+        }
+        int square = y * this.dimensions + x;
+        this.letterMultipliers[square] = (byte) multiplier.getLetterValue();
+        this.wordMultipliers[square] = (byte) multiplier.getWordValue();
+        this.multipliers[square] = multiplier;
+      }
+    }
+  }
+
+  public int getDimensions() {
+    return this.dimensions;
+  }
+
+  /**
+   * @param square the index of a square, <code>y * dimensions + x</code>
+   */
+  public int getLetterMultiplier(int square) {
+    return this.letterMultipliers[square];
+  }
+
+  /**
+   * @param square the index of a square, <code>y * dimensions + x</code>
+   */
+  public int getWordMultiplier(int square) {
+    return this.wordMultipliers[square];
+  }
+
+  public Multiplier getMultiplier(int square) {
+    return this.multipliers[square];
+  }
+
+  /**
+   * @return whether the given board has exactly the squares of this layout
+   */
+  public boolean matches(BoardSquare[][] board) {
+    if (board.length != this.dimensions) {
+      return false;
+    }
+    for (int y = 0; y < this.dimensions; y++) {
+      if (board[y].length != this.dimensions) {
+        return false;
+      }
+      for (int x = 0; x < this.dimensions; x++) {
+        Multiplier multiplier = board[y][x].getMultiplier();
+        int square = y * this.dimensions + x;
+        if (multiplier == null || multiplier.getLetterValue() != this.letterMultipliers[square] ||
+                multiplier.getWordValue() != this.wordMultipliers[square]) {
+          return false;
+        }
+      }
+    }
+    return true;
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) return true;
+    if (o == null || getClass() != o.getClass()) return false;
+    BoardLayout that = (BoardLayout) o;
+    return dimensions == that.dimensions &&
+            Arrays.equals(letterMultipliers, that.letterMultipliers) &&
+            Arrays.equals(wordMultipliers, that.wordMultipliers);
+  }
+
+  @Override
+  public int hashCode() {
+    return 31 * Arrays.hashCode(letterMultipliers) + Arrays.hashCode(wordMultipliers);
+  }
+
+}
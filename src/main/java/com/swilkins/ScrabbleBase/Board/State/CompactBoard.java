@@ -0,0 +1,224 @@
+package com.swilkins.ScrabbleBase.Board.State;
+
+/**
+ * A board held in a few flat arrays instead of a grid of <code>BoardSquare</code>s: the resolved
+ * letter and the value of the tile on every square, row by row, a bit for every square holding a
+ * blank, and a shared <code>BoardLayout</code> for the multipliers. Reading a square is a single
+ * array access rather than a chain of references, and the whole board fits in a few cache lines.
+ * <p>
+ * Squares are numbered <code>y * dimensions + x</code>. A tile standing for a letter other than
+ * its own, that is one with a letter proxy, is taken to be a blank.
+ * <p>
+ * Which squares hold a tile is also kept as bitboards, one <code>long</code> per row with bit x set
+ * for an occupied column x and one per column with bit y set for an occupied row y, so that the
+ * squares next to a tile, or the run of tiles starting at a square, take a few shifts and masks to
+ * find. A board can therefore be at most <code>BoardLayout.MAX_DIMENSIONS</code> squares across.
+ */
+public final class CompactBoard {
+
+  // The letter of a square without a tile
+  public static final char EMPTY = 0;
+
+  private final BoardLayout layout;
+  private final int dimensions;
+  private final char[] letters;
+  private final byte[] values;
+  private final long[] blanks;
+  private final long[] rows;
+  private final long[] columns;
+
+  /**
+   * Creates an empty board with the given layout.
+   */
+  public CompactBoard(BoardLayout layout) {
+    this.layout = layout;
+    this.dimensions = layout.getDimensions();
+    int squares = this.dimensions * this.dimensions;
+    this.letters = new char[squares];
+    this.values = new byte[squares];
+    this.blanks = new long[(squares + 63) >>> 6];
+    this.rows = new long[this.dimensions];
+    this.columns = new long[this.dimensions];
+  }
+
+  private CompactBoard(CompactBoard other) {
+    this.layout = other.layout;
+    this.dimensions = other.dimensions;
+    this.letters = other.letters.clone();
+    this.values = other.values.clone();
+    this.blanks = other.blanks.clone();
+    this.rows = other.rows.clone();
+    this.columns = other.columns.clone();
+  }
+
+  /**
+   * @return an independent copy of this board, sharing only its layout
+   */
+  public CompactBoard copy() {
+    return new CompactBoard(this);
+  }
+
+  /**
+   * @param layout the layout of the given board, such as the standard one, which it must match
+   * @return a board holding the same tiles as the given one
+   */
+  public static CompactBoard of(BoardSquare[][] board, BoardLayout layout) throws IllegalArgumentException {
+    CompactBoard compact = new CompactBoard(layout);
+    for (int y = 0; y < compact.dimensions; y++) {
+      for (int x = 0; x < compact.dimensions; x++) {
+        Tile tile = board[y][x].getTile();
+        if (tile != null) {
+          compact.setTile(x, y, tile);
+        }
+      }
+    }
+    return compact;
+  }
+
+  /**
+   * @return a board holding the same tiles as the given one, with a layout of its own
+   */
+  public static CompactBoard of(BoardSquare[][] board) throws IllegalArgumentException {
+    return of(board, new BoardLayout(board));
+  }
+
+  /**
+   * @return a new grid of squares holding the same tiles as this board
+   */
+  public BoardSquare[][] toBoardSquares() {
+    BoardSquare[][] board = new BoardSquare[this.dimensions][this.dimensions];
+    for (int y = 0; y < this.dimensions; y++) {
+      for (int x = 0; x < this.dimensions; x++) {
+        int square = y * this.dimensions + x;
+        board[y][x] = new BoardSquare(this.layout.getMultiplier(square), this.getTile(square));
+      }
+    }
+    return board;
+  }
+
+  public BoardLayout getLayout() {
+    return this.layout;
+  }
+
+  public int getDimensions() {
+    return this.dimensions;
+  }
+
+  /**
+   * Places the given tile on the given square, or clears it if the tile is {@code null}.
+   *
+   * @throws IllegalArgumentException if the value of the tile does not fit in a byte
+   */
+  public void setTile(int x, int y, Tile tile) throws IllegalArgumentException {
+    int square = y * this.dimensions + x;
+    long bit = 1L << (square & 63);
+    if (tile == null) {
+      this.letters[square] = EMPTY;
+      this.values[square] = 0;
+      this.blanks[square >>> 6] &= ~bit;
+      this.rows[y] &= ~(1L << x);
+      this.columns[x] &= ~(1L << y);
+      return;
+    }
+    if (tile.getValue() != (byte) tile.getValue()) {
+      throw new IllegalArgumentException();
+    }
+    this.rows[y] |= 1L << x;
+    this.columns[x] |= 1L << y;
+    this.letters[square] = tile.getResolvedLetter();
+    this.values[square] = (byte) tile.getValue();
+    if (tile.getLetterProxy() != null) {
+      this.blanks[square >>> 6] |= bit;
+    } else {
+      this.blanks[square >>> 6] &= ~bit;
+    }
+  }
+
+  public boolean isEmpty(int square) {
+    return this.letters[square] == EMPTY;
+  }
+
+  /**
+   * @return the letter the tile on the given square stands for, or <code>EMPTY</code>
+   */
+  public char getLetter(int square) {
+    return this.letters[square];
+  }
+
+  /**
+   * @return the value of the tile on the given square, or 0 if there is none
+   */
+  public int getValue(int square) {
+    return this.values[square];
+  }
+
+  public boolean isBlank(int square) {
+    return (this.blanks[square >>> 6] & 1L << (square & 63)) != 0;
+  }
+
+  /**
+   * @return a new tile equal to the one on the given square, or {@code null} if there is none
+   */
+  public Tile getTile(int square) {
+    if (this.isEmpty(square)) {
+      return null;
+    }
+    if (this.isBlank(square)) {
+      return new Tile(Tile.BLANK, this.values[square], this.letters[square]);
+    }
+    return new Tile(this.letters[square], this.values[square], null);
+  }
+
+  /**
+   * @return the occupied squares of the given row, with bit x set for column x
+   */
+  public long getRow(int y) {
+    return this.rows[y];
+  }
+
+  /**
+   * @return the occupied squares of the given column, with bit y set for row y
+   */
+  public long getColumn(int x) {
+    return this.columns[x];
+  }
+
+  /**
+   * @return the empty squares of the given row that are next to a tile in any direction, with bit x
+   * set for column x: the hooks through which a new word has to be played
+   */
+  public long getHooks(int y) {
+    long row = this.rows[y];
+    long neighbors = row << 1 | row >>> 1;
+    if (y > 0) {
+      neighbors |= this.rows[y - 1];
+    }
+    if (y < this.dimensions - 1) {
+      neighbors |= this.rows[y + 1];
+    }
+    // Shifting left can carry a tile in the last column past the edge of the board
+    return neighbors & ~row & -1L >>> (Long.SIZE - this.dimensions);
+  }
+
+  /**
+   * @param horizontal whether to count along the row of the square or down its column
+   * @param forward    whether to count towards higher columns or rows, or towards lower ones
+   * @return the number of consecutive occupied squares starting at the given one, which is 0 if it is
+   * empty
+   */
+  public int getRun(int x, int y, boolean horizontal, boolean forward) {
+    long line = horizontal ? this.rows[y] : this.columns[x];
+    int position = horizontal ? x : y;
+    long ahead = forward ? line >>> position : Long.reverse(line) >>> (Long.SIZE - 1 - position);
+    return Long.numberOfTrailingZeros(~ahead);
+  }
+
+  public int getLetterMultiplier(int square) {
+    return this.layout.getLetterMultiplier(square);
+  }
+
+  public int getWordMultiplier(int square) {
+    return this.layout.getWordMultiplier(square);
+  }
+
+}
@@ -40,4 +40,11 @@ public class Rack extends LinkedList<Tile> {
     return capacity == size();
   }
 
+  /**
+   * @return the tiles on this rack as a <code>RackMultiset</code>, which does not change with it
+   */
+  public RackMultiset toMultiset() {
+    return new RackMultiset(this);
+  }
+
 }
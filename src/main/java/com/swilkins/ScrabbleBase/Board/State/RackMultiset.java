@@ -0,0 +1,151 @@
+package com.swilkins.ScrabbleBase.Board.State;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * A rack held as a multiset: each distinct tile once, with the number of copies of it. Since
+ * copies of a tile are interchangeable, a search that tries each distinct tile rather than each
+ * copy never explores the same placements twice, and taking a copy off the rack or putting it
+ * back only changes a count.
+ * <p>
+ * Blanks are a distinct tile like any other, so a rack of "eeeiis*" holds four of them: e, i, s
+ * and the blank, with counts of three, two, one and one.
+ */
+public final class RackMultiset {
+
+  // The distinct tiles in the order they were first added, of which the first kindCount are in use
+  private Tile[] kinds;
+  private int[] counts;
+  private int kindCount;
+  private int size;
+  private int value;
+
+  public RackMultiset() {
+    this.kinds = new Tile[8];
+    this.counts = new int[8];
+  }
+
+  public RackMultiset(Collection<Tile> tiles) {
+    this();
+    for (Tile tile : tiles) {
+      this.add(tile);
+    }
+  }
+
+  private RackMultiset(RackMultiset other) {
+    this.kinds = Arrays.copyOf(other.kinds, other.kinds.length);
+    this.counts = Arrays.copyOf(other.counts, other.counts.length);
+    this.kindCount = other.kindCount;
+    this.size = other.size;
+    this.value = other.value;
+  }
+
+  /**
+   * @return an independent copy of this rack
+   */
+  public RackMultiset copy() {
+    return new RackMultiset(this);
+  }
+
+  /**
+   * @throws IllegalArgumentException if the tile is {@code null}
+   */
+  public void add(Tile tile) throws IllegalArgumentException {
+    if (tile == null) {
+      throw new IllegalArgumentException();
+    }
+    int kind = this.indexOf(tile);
+    if (kind == -1) {
+      if (this.kindCount == this.kinds.length) {
+        this.kinds = Arrays.copyOf(this.kinds, this.kindCount * 2);
+        this.counts = Arrays.copyOf(this.counts, this.kindCount * 2);
+      }
+      kind = this.kindCount++;
+      this.kinds[kind] = tile;
+    }
+    this.putBack(kind);
+  }
+
+  /**
+   * @return the index of the given tile among the distinct tiles of this rack, or -1 if it has
+   * never been added
+   */
+  public int indexOf(Tile tile) {
+    for (int kind = 0; kind < this.kindCount; kind++) {
+      if (this.kinds[kind].equals(tile)) {
+        return kind;
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * @return the number of distinct tiles this rack has held, including those of which no copy is
+   * left; these are numbered from 0
+   */
+  public int getKindCount() {
+    return this.kindCount;
+  }
+
+  public Tile getTile(int kind) {
+    return this.kinds[kind];
+  }
+
+  /**
+   * @return the number of copies of the given tile left on the rack
+   */
+  public int getCount(int kind) {
+    return this.counts[kind];
+  }
+
+  /**
+   * Removes one copy of the given tile, of which there must be at least one left.
+   */
+  public void take(int kind) {
+    this.counts[kind]--;
+    this.size--;
+    this.value -= this.kinds[kind].getValue();
+  }
+
+  /**
+   * Adds one copy of the given tile, as taken by <code>take()</code>.
+   */
+  public void putBack(int kind) {
+    this.counts[kind]++;
+    this.size++;
+    this.value += this.kinds[kind].getValue();
+  }
+
+  /**
+   * @return the number of blanks on the rack
+   */
+  public int getBlankCount() {
+    int blanks = 0;
+    for (int kind = 0; kind < this.kindCount; kind++) {
+      if (this.kinds[kind].getLetter() == Tile.BLANK) {
+        blanks += this.counts[kind];
+      }
+    }
+    return blanks;
+  }
+
+  /**
+   * @return the number of tiles on the rack, counting every copy
+   */
+  public int size() {
+    return this.size;
+  }
+
+  public boolean isEmpty() {
+    return this.size == 0;
+  }
+
+  /**
+   * @return the total value of the tiles on the rack
+   */
+  public int getValue() {
+    return this.value;
+  }
+
+}
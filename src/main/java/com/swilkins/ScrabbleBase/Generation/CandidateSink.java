@@ -0,0 +1,18 @@
+package com.swilkins.ScrabbleBase.Generation;
+
+/**
+ * Receives the candidates of a call to <code>Generator.generate()</code> one at a time, as the
+ * search finds them, instead of in a <code>GeneratorResult</code> once it has finished.
+ */
+@FunctionalInterface
+public interface CandidateSink {
+
+  /**
+   * @param move a view of the candidate just found, which is only valid until this method returns
+   *             (see <code>MoveView.toCandidate()</code> to keep it)
+   * @return {@code true} to continue the search, or {@code false} to end it without reporting
+   * another candidate
+   */
+  boolean accept(MoveView move);
+
+}
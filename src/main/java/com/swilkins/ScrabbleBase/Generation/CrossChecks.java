@@ -0,0 +1,265 @@
+package com.swilkins.ScrabbleBase.Generation;
+
+import com.swilkins.ScrabbleBase.Board.Location.TilePlacement;
+import com.swilkins.ScrabbleBase.Board.State.CompactBoard;
+import com.swilkins.ScrabbleBase.Vocabulary.Alphabet;
+import com.swilkins.ScrabbleBase.Vocabulary.TrieSnapshot;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import static com.swilkins.ScrabbleBase.Vocabulary.TrieSnapshot.NONE;
+
+/**
+ * Records, for every empty square of a board and for both orientations of a primary word, which
+ * letters could be placed there without spelling an invalid cross word in the perpendicular
+ * direction. Whether a letter is allowed depends only on the square and the tiles already on the
+ * board, never on the primary word being built, so <code>generate()</code> can test any placement
+ * against a precomputed mask instead of walking the cross word again every time.
+ * <p>
+ * Given the tiles L before a square and R after it in the perpendicular direction, the letters c
+ * for which LcR is a word are found with a single walk through the <code>PermutationTrie</code>:
+ * down the rotation R#, then across every child c and down reverse(L) (or, when R is empty, down
+ * L and across every terminal child).
+ * <p>
+ * The score of a cross word is fixed just as much, apart from the value of the tile that completes
+ * it, so the sum of the tiles already in it is recorded too.
+ * <p>
+ * The tables are sized by the board and can be refilled with <code>reset()</code> for any board of
+ * the same dimensions, so a thread computing one position after another needs to allocate them once.
+ * Between positions, <code>clear()</code> lets go of the board and the trie.
+ */
+final class CrossChecks {
+
+  private CompactBoard board;
+  private TrieSnapshot graph;
+  private Alphabet alphabet;
+  private char delimiter;
+  private int lexicons;
+  private final int dimensions;
+  // Indexed by orientation (0 for words along a row, 1 for words along a column), then by square
+  private final long[][] masks;
+  // The number of tiles already on the board that a placement would join into a cross word,
+  // before and after the square, by orientation and square
+  private final int[][] before;
+  private final int[][] after;
+  // The sum of the values of those tiles, by orientation and square
+  private final int[][] neighborSums;
+
+  CrossChecks(int dimensions) {
+    this.dimensions = dimensions;
+    int squares = dimensions * dimensions;
+    this.masks = new long[2][squares];
+    this.before = new int[2][squares];
+    this.after = new int[2][squares];
+    this.neighborSums = new int[2][squares];
+  }
+
+  CrossChecks(CompactBoard board, TrieSnapshot graph, Alphabet alphabet, char delimiter, int lexicons) {
+    this(board.getDimensions());
+    this.reset(board, graph, alphabet, delimiter, lexicons);
+  }
+
+  int getDimensions() {
+    return this.dimensions;
+  }
+
+  /**
+   * Replaces every entry with those of the given board, which must have the dimensions these
+   * tables were sized for.
+   */
+  void reset(CompactBoard board, TrieSnapshot graph, Alphabet alphabet, char delimiter, int lexicons) {
+    this.board = board;
+    this.graph = graph;
+    this.alphabet = alphabet;
+    this.delimiter = delimiter;
+    this.lexicons = lexicons;
+
+    for (int y = 0; y < this.dimensions; y++) {
+      for (int x = 0; x < this.dimensions; x++) {
+        if (board.isEmpty(y * this.dimensions + x)) {
+          this.compute(x, y, 0);
+          this.compute(x, y, 1);
+        }
+      }
+    }
+  }
+
+  /**
+   * Drops the board and the trie the entries were computed from, keeping only the tables
+   * themselves. No method but <code>reset()</code> may be called until the next one.
+   */
+  void clear() {
+    this.board = null;
+    this.graph = null;
+    this.alphabet = null;
+  }
+
+  private static int orientation(Direction dir) {
+    return dir.normalize() == Direction.RIGHT ? 0 : 1;
+  }
+
+  // The distance between consecutive squares of a cross word, which runs across the primary word
+  private int step(int orientation) {
+    return orientation == 0 ? this.dimensions : 1;
+  }
+
+  private void compute(int x, int y, int orientation) {
+    int square = y * this.dimensions + x;
+    int step = this.step(orientation);
+    // The position of the square along its cross word's line, and the length of that line
+    int position = orientation == 0 ? y : x;
+    int before = 0;
+    while (position - before > 0 && !this.board.isEmpty(square - (before + 1) * step)) {
+      before++;
+    }
+    int after = 0;
+    while (position + after < this.dimensions - 1 && !this.board.isEmpty(square + (after + 1) * step)) {
+      after++;
+    }
+    this.before[orientation][square] = before;
+    this.after[orientation][square] = after;
+    if (before == 0 && after == 0) {
+      this.masks[orientation][square] = -1L;
+      return;
+    }
+
+    int sum = 0;
+    for (int i = 1; i <= before; i++) {
+      sum += this.board.getValue(square - i * step);
+    }
+    for (int i = 1; i <= after; i++) {
+      sum += this.board.getValue(square + i * step);
+    }
+    this.neighborSums[orientation][square] = sum;
+
+    long mask = 0;
+    if (after > 0) {
+      int anchor = this.walk(this.graph.getRoot(), square + step, step, after);
+      if (anchor != NONE && (anchor = this.graph.getChild(anchor, this.delimiter)) != NONE) {
+        for (int i = 0, count = this.graph.getChildCount(anchor); i < count; i++) {
+          int node = this.walk(this.graph.getChildAt(anchor, i), square - step, -step, before);
+          if (node != NONE && this.isWord(node)) {
+            mask |= this.alphabet.getMask(this.graph.getChildLetter(anchor, i));
+          }
+        }
+      }
+    } else {
+      int anchor = this.walk(this.graph.getRoot(), square - before * step, step, before);
+      if (anchor != NONE) {
+        for (int i = 0, count = this.graph.getChildCount(anchor); i < count; i++) {
+          char letter = this.graph.getChildLetter(anchor, i);
+          if (letter != this.delimiter && this.isWord(this.graph.getChildAt(anchor, i))) {
+            mask |= this.alphabet.getMask(letter);
+          }
+        }
+      }
+    }
+    this.masks[orientation][square] = mask;
+  }
+
+  /**
+   * Follows the letters of the given number of consecutive squares, starting at the given one and
+   * moving by the given step, down from the given node.
+   */
+  private int walk(int node, int square, int step, int count) {
+    for (int i = 0; i < count && node != NONE; i++, square += step) {
+      node = this.graph.getChild(node, this.board.getLetter(square));
+    }
+    return node;
+  }
+
+  private boolean isWord(int node) {
+    return (this.graph.getLexicons(node) & this.lexicons) != 0;
+  }
+
+  /**
+   * @param dir the direction of the primary word being built
+   * @return whether the given letter can be placed at the given empty square without spelling an
+   * invalid cross word
+   */
+  boolean allows(int x, int y, Direction dir, char letter) {
+    int orientation = orientation(dir);
+    int square = y * this.dimensions + x;
+    long mask = this.masks[orientation][square];
+    int index = this.alphabet.indexOf(letter);
+    if (index == Alphabet.NONE || (mask & Alphabet.getMask(index)) == 0) {
+      return false;
+    }
+    if (Alphabet.getMask(index) != Long.MIN_VALUE || !this.hasCross(orientation, square)) {
+      return true;
+    }
+    // Letters beyond the 63rd share the last bit, so that bit alone cannot vouch for them
+    return this.formsWord(orientation, square, letter);
+  }
+
+  private boolean formsWord(int orientation, int square, char letter) {
+    int step = this.step(orientation);
+    int before = this.before[orientation][square];
+    // The cross word is spelled from its first letter, along the path the trie keeps for it unrotated
+    int node = this.walk(this.graph.getRoot(), square - before * step, step, before);
+    if (node != NONE) {
+      node = this.graph.getChild(node, letter);
+    }
+    node = node == NONE ? NONE : this.walk(node, square + step, step, this.after[orientation][square]);
+    return node != NONE && this.isWord(node);
+  }
+
+  /**
+   * @param dir    the direction of the primary word being built
+   * @param placed the placement of a letter allowed at its square
+   * @return every tile of the cross word the placement spells, including the placement itself, or
+   * {@code null} if the placement spells no cross word
+   */
+  Set<TilePlacement> getCross(Direction dir, TilePlacement placed) {
+    int orientation = orientation(dir);
+    int square = placed.getY() * this.dimensions + placed.getX();
+    if (!this.hasCross(orientation, square)) {
+      return null;
+    }
+    int step = this.step(orientation);
+    Set<TilePlacement> placements = new HashSet<>();
+    for (int i = -this.before[orientation][square]; i <= this.after[orientation][square]; i++) {
+      int neighbor = square + i * step;
+      placements.add(i == 0 ? placed :
+              new TilePlacement(neighbor % this.dimensions, neighbor / this.dimensions, this.board.getTile(neighbor)));
+    }
+    return placements;
+  }
+
+  private boolean hasCross(int orientation, int square) {
+    return this.before[orientation][square] != 0 || this.after[orientation][square] != 0;
+  }
+
+  /**
+   * @param dir the direction of the primary word being built
+   * @return whether a placement at the given empty square would spell a cross word
+   */
+  boolean hasCross(int x, int y, Direction dir) {
+    return this.hasCross(orientation(dir), y * this.dimensions + x);
+  }
+
+  /**
+   * @param dir the direction of the primary word being built
+   * @return whether any letter at all can be placed at the given empty square
+   */
+  boolean allowsAny(int x, int y, Direction dir) {
+    return this.masks[orientation(dir)][y * this.dimensions + x] != 0;
+  }
+
+  /**
+   * @param dir   the direction of the primary word being built
+   * @param value the value of the tile placed at the given square
+   * @return the score of the cross word the placement spells, before any bonus, or 0 if it spells none
+   */
+  int getCrossScore(int x, int y, Direction dir, int value) {
+    int square = y * this.dimensions + x;
+    int orientation = orientation(dir);
+    if (!this.hasCross(orientation, square)) {
+      return 0;
+    }
+    return (this.neighborSums[orientation][square] + value * this.board.getLetterMultiplier(square)) *
+            this.board.getWordMultiplier(square);
+  }
+
+}
@@ -53,6 +53,20 @@ public class Direction {
     return null;
   }
 
+  /**
+   * @return the number of squares between the given square and the edge of the board in this direction
+   */
+  public int distanceToEdge(int x, int y, int dimensions) {
+    int distance = Integer.MAX_VALUE;
+    if (this.xInc != 0) {
+      distance = this.xInc > 0 ? dimensions - 1 - x : x;
+    }
+    if (this.yInc != 0) {
+      distance = Math.min(distance, this.yInc > 0 ? dimensions - 1 - y : y);
+    }
+    return distance;
+  }
+
   public Direction inverse() {
     if (this == Direction.UP) {
       return Direction.DOWN;
@@ -1,41 +1,60 @@
 package com.swilkins.ScrabbleBase.Generation;
 
-import com.swilkins.ScrabbleBase.Board.Location.Coordinates;
+import com.swilkins.ScrabbleBase.Board.Configuration;
 import com.swilkins.ScrabbleBase.Board.Location.TilePlacement;
+import com.swilkins.ScrabbleBase.Board.State.BoardLayout;
 import com.swilkins.ScrabbleBase.Board.State.BoardSquare;
-import com.swilkins.ScrabbleBase.Board.State.Multiplier;
+import com.swilkins.ScrabbleBase.Board.State.CompactBoard;
+import com.swilkins.ScrabbleBase.Board.State.Rack;
+import com.swilkins.ScrabbleBase.Board.State.RackMultiset;
 import com.swilkins.ScrabbleBase.Board.State.Tile;
 import com.swilkins.ScrabbleBase.Generation.Exception.InvalidBoardStateException;
 import com.swilkins.ScrabbleBase.Generation.Exception.InvalidRackLengthException;
 import com.swilkins.ScrabbleBase.Generation.Exception.UnsetRackCapacityException;
 import com.swilkins.ScrabbleBase.Generation.Exception.UnsetTrieException;
+import com.swilkins.ScrabbleBase.Vocabulary.Alphabet;
+import com.swilkins.ScrabbleBase.Vocabulary.DictionaryVersion;
 import com.swilkins.ScrabbleBase.Vocabulary.PermutationTrie;
-import com.swilkins.ScrabbleBase.Vocabulary.TrieNode;
+import com.swilkins.ScrabbleBase.Vocabulary.Trie;
+import com.swilkins.ScrabbleBase.Vocabulary.TrieSnapshot;
+import com.swilkins.ScrabbleBase.Vocabulary.VersionedDictionary;
 
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
 import java.util.function.BiConsumer;
-import java.util.function.Consumer;
+import java.util.function.BiPredicate;
+import java.util.function.IntPredicate;
+import java.util.function.LongConsumer;
+import java.util.function.Supplier;
 
 import static com.swilkins.ScrabbleBase.Board.Configuration.STANDARD_BINGO;
+import static com.swilkins.ScrabbleBase.Vocabulary.TrieSnapshot.NONE;
 
 /**
  * Represents an entity capable of generating an exhaustive list of
  * candidate plays (represented for utility by a <code>GeneratorResult</code>
  * instance) given rack state, board state and vocabulary (trie) state.
  * It supports the use of blank tiles.
+ * <p>
+ * A <code>Generator</code> keeps nothing but its configuration between calls: everything a call
+ * needs lives in a <code>Search</code> of its own, and the tables it would otherwise allocate each
+ * time are borrowed from a per-thread pool. Once configured, a single instance can therefore serve
+ * any number of concurrent calls to <code>compute()</code>.
  */
 public class Generator {
 
-  // The specialized data structure used to store the vocabulary
-  private PermutationTrie trie;
-  // The root of the trie representing the vocabulary. All word traversals start here.
-  private TrieNode root;
-  // The delimiter used to denote a direction inversion in the PermutationTrie
-  private char delimiter;
-  // A direct result of the trie's contents, not necessarily just [a-z]
-  private Set<Character> alphabet;
+  // Tables reused by successive calls to compute() on the same thread
+  private static final ThreadLocal<Scratch> SCRATCH = ThreadLocal.withInitial(Scratch::new);
+
+  // The specialized data structure used to store the vocabulary, when set directly
+  private volatile PermutationTrie trie;
+  // The live handle to the vocabulary, when set instead of a trie
+  private volatile VersionedDictionary dictionary;
+  // Supplies the version of whichever of the two was set last, read once per call to compute()
+  private volatile Supplier<DictionaryVersion> vocabulary;
   // Value used to determine when a candidate exhausts the rack and thus invokes the bonus score, or 'bingo'
-  private Integer rackCapacity;
+  private volatile Integer rackCapacity;
 
   /**
    * If the caller has references to both the <code>PermutationTrie</code> representing
@@ -62,15 +81,26 @@ public class Generator {
   }
 
   /**
-   * @return the permutation trie instance to be used in candidate generation
+   * @return the permutation trie instance to be used in candidate generation, or {@code null} if
+   * this <code>Generator</code> reads from a <code>VersionedDictionary</code>
    */
   public PermutationTrie getPermutationTrie() {
     return this.trie;
   }
 
+  /**
+   * @return the dictionary handle to be used in candidate generation, or {@code null} if this
+   * <code>Generator</code> reads from a trie set directly
+   */
+  public VersionedDictionary getDictionary() {
+    return this.dictionary;
+  }
+
   /**
    * Directs this <code>Generator</code> to use the given instance of
-   * <code>PermutationTrie</code> in candidate generation.
+   * <code>PermutationTrie</code> in candidate generation. Generation reads the trie's packed
+   * snapshot, so a trie that will not change again is best frozen first (see
+   * <code>Trie.freeze()</code>), so that it does not also keep its node graph.
    *
    * @param trie the permutation trie instance to be used in candidate generation
    * @throws IllegalArgumentException if the trie reference is {@code null}
@@ -79,7 +109,28 @@ public class Generator {
     if (trie == null) {
       throw new IllegalArgumentException();
     }
-    this.delimiter = (this.trie = trie).getDelimiter();
+    this.trie = trie;
+    this.dictionary = null;
+    this.vocabulary = () -> DictionaryVersion.capture(trie, 0);
+  }
+
+  /**
+   * Directs this <code>Generator</code> to read from the given dictionary handle. Each call to
+   * <code>compute()</code> pins whichever version is current when it starts and uses only that
+   * version throughout, so new versions can be published at any time without disturbing
+   * generation that is already in progress. Unlike a trie set directly, the dictionary may be
+   * updated by other threads while <code>compute()</code> runs.
+   *
+   * @param dictionary the dictionary handle to be used in candidate generation
+   * @throws IllegalArgumentException if the dictionary reference is {@code null}
+   */
+  public void setDictionary(VersionedDictionary dictionary) throws IllegalArgumentException {
+    if (dictionary == null) {
+      throw new IllegalArgumentException();
+    }
+    this.dictionary = dictionary;
+    this.trie = null;
+    this.vocabulary = dictionary::current;
   }
 
   public Integer getRackCapacity() {
@@ -120,42 +171,352 @@ public class Generator {
 
   public GeneratorResult compute(LinkedList<Tile> rack, BoardSquare[][] board)
           throws IllegalArgumentException, UnsetTrieException, UnsetRackCapacityException {
-    Set<Coordinates> validHooks = validateInput(rack, board);
-    int dimensions = board.length;
+    return this.compute(rack, board, Trie.ALL_LEXICONS);
+  }
+
+  /**
+   * Generates candidates using only the words of the selected lexicons, both for the primary
+   * word and for every cross word, exactly as if the vocabulary held nothing else. Subtrees
+   * without any word of the selected lexicons are never entered.
+   *
+   * @param lexicons a mask of lexicon indices, with bit i selecting lexicon i (see <code>Trie.add(String, int)</code>)
+   */
+  public GeneratorResult compute(LinkedList<Tile> rack, BoardSquare[][] board, int lexicons)
+          throws IllegalArgumentException, UnsetTrieException, UnsetRackCapacityException {
+    return this.compute(toMultiset(rack), board, lexicons);
+  }
+
+  /**
+   * Generates candidates from a rack already held as a <code>RackMultiset</code>, which is how every
+   * search sees its rack: each distinct tile is tried once at a square, however many copies of it
+   * the rack holds. The rack itself is left as it is.
+   *
+   * @param lexicons a mask of lexicon indices, with bit i selecting lexicon i (see <code>Trie.add(String, int)</code>)
+   */
+  public GeneratorResult compute(RackMultiset rack, BoardSquare[][] board, int lexicons)
+          throws IllegalArgumentException, UnsetTrieException, UnsetRackCapacityException {
+    return this.computePacked(rack, toCompact(board), lexicons, null);
+  }
+
+  /**
+   * Generates candidates on a board already held as a <code>CompactBoard</code>, which is how every
+   * search reads the board: the other forms of <code>compute()</code> convert theirs first.
+   *
+   * @param lexicons a mask of lexicon indices, with bit i selecting lexicon i (see <code>Trie.add(String, int)</code>)
+   */
+  public GeneratorResult compute(RackMultiset rack, CompactBoard board, int lexicons)
+          throws IllegalArgumentException, UnsetTrieException, UnsetRackCapacityException {
+    if (board == null) {
+      throw new IllegalArgumentException();
+    }
+    // The result rebuilds its candidates from the board, which the caller remains free to change
+    return this.computePacked(rack, board.copy(), lexicons, null);
+  }
 
-    this.alphabet = this.trie.getAlphabet();
-    this.root = this.trie.getRoot();
+  /**
+   * Collects candidates packed into a <code>PackedMoves</code> arena as they are found, so that a
+   * <code>Candidate</code> is only built for those the result is asked for.
+   */
+  private GeneratorResult computePacked(RackMultiset rack, CompactBoard board, int lexicons, ForkJoinPool pool) {
+    return new GeneratorResult(this.<PackedMoves>collect(rack, board, lexicons, pool, null, null, () -> new PackedMoves(board),
+            (moves, move) -> {
+              moves.add(move);
+              return true;
+            }, PackedMoves::addAll));
+  }
 
-    Set<Candidate> candidates = new HashSet<>();
+  /**
+   * Equivalent to {@code generate(rack, board, Trie.ALL_LEXICONS, sink)}.
+   */
+  public void generate(LinkedList<Tile> rack, BoardSquare[][] board, CandidateSink sink)
+          throws IllegalArgumentException, UnsetTrieException, UnsetRackCapacityException {
+    this.generate(rack, board, Trie.ALL_LEXICONS, sink);
+  }
 
-    if (!rack.isEmpty() && !this.trie.isEmpty()) {
+  /**
+   * Reports the candidates <code>compute()</code> would return to the given sink as the search
+   * finds them, so that nothing is held on to unless the sink keeps it. Each is described by a
+   * <code>MoveView</code> that the search reuses from one candidate to the next, and no
+   * <code>Candidate</code> is built unless the sink asks for one. As soon as the sink returns
+   * {@code false}, the search ends and no further candidate is reported.
+   * <p>
+   * Like <code>compute()</code>, the sink sees every play exactly once.
+   *
+   * @param lexicons a mask of lexicon indices, with bit i selecting lexicon i (see <code>Trie.add(String, int)</code>)
+   * @param sink     receives every candidate found, until it asks for the search to end
+   */
+  public void generate(LinkedList<Tile> rack, BoardSquare[][] board, int lexicons, CandidateSink sink)
+          throws IllegalArgumentException, UnsetTrieException, UnsetRackCapacityException {
+    this.generate(toMultiset(rack), board, lexicons, sink);
+  }
+
+  /**
+   * Equivalent to <code>generate()</code> on a list of the same tiles (see <code>compute(RackMultiset, BoardSquare[][], int)</code>).
+   */
+  public void generate(RackMultiset rack, BoardSquare[][] board, int lexicons, CandidateSink sink)
+          throws IllegalArgumentException, UnsetTrieException, UnsetRackCapacityException {
+    this.generate(rack, toCompact(board), lexicons, sink);
+  }
+
+  /**
+   * Equivalent to <code>generate()</code> on a grid of the same squares (see <code>compute(RackMultiset, CompactBoard, int)</code>).
+   */
+  public void generate(RackMultiset rack, CompactBoard board, int lexicons, CandidateSink sink)
+          throws IllegalArgumentException, UnsetTrieException, UnsetRackCapacityException {
+    if (sink == null) {
+      throw new IllegalArgumentException();
+    }
+    this.collect(rack, board, lexicons, null, null, null, () -> sink, CandidateSink::accept, null);
+  }
 
-      Consumer<Coordinates> generateAtHook = coordinates -> {
-        int x = coordinates.getX();
-        int y = coordinates.getY();
+  /**
+   * Equivalent to {@code computeParallel(rack, board, Trie.ALL_LEXICONS, ForkJoinPool.commonPool())}.
+   */
+  public GeneratorResult computeParallel(LinkedList<Tile> rack, BoardSquare[][] board)
+          throws IllegalArgumentException, UnsetTrieException, UnsetRackCapacityException {
+    return this.computeParallel(rack, board, Trie.ALL_LEXICONS, ForkJoinPool.commonPool());
+  }
+
+  /**
+   * Generates exactly the candidates <code>compute()</code> would, but searches from every hook
+   * and direction as a separate task of the given pool. Each task works on its own copy of the
+   * rack and collects its own candidates, which are merged once every task has finished, so the
+   * only state the tasks share is the board and vocabulary, which none of them modifies.
+   *
+   * @param lexicons a mask of lexicon indices, with bit i selecting lexicon i (see <code>Trie.add(String, int)</code>)
+   * @param pool     the pool on which the searches run
+   */
+  public GeneratorResult computeParallel(LinkedList<Tile> rack, BoardSquare[][] board, int lexicons, ForkJoinPool pool)
+          throws IllegalArgumentException, UnsetTrieException, UnsetRackCapacityException {
+    if (pool == null) {
+      throw new IllegalArgumentException();
+    }
+    return this.computePacked(toMultiset(rack), toCompact(board), lexicons, pool);
+  }
+
+  /**
+   * Generates only the best <code>k</code> candidates under the given ordering, already sorted
+   * best first: the same candidates <code>compute()</code> followed by <code>orderBy()</code> would
+   * lead with, up to the order of candidates the ordering considers equal. Candidates are ranked as
+   * they are found and only the best are ever held, so neither the full candidate set nor its sort
+   * is paid for, and once <code>k</code> candidates are held, one that scores less than all of
+   * them is not even built.
+   * <p>
+   * The search is also pruned by branch and bound (see <code>ScoreBounds</code>): a subtree is
+   * left as soon as not even the most optimistic completion of its placements could score as much
+   * as the worst candidate held. To raise that bar early, the hooks and directions whose bounds
+   * are highest are searched first, and the most valuable rack tiles are tried first at each square.
+   *
+   * @param k        the number of candidates wanted
+   * @param ordering sorts better candidates first, and higher scores before lower ones, such as
+   *                 <code>getDefaultOrdering()</code> or any refinement of it
+   * @throws IllegalArgumentException if <code>k</code> is not a positive number, or the ordering is {@code null}
+   */
+  public GeneratorResult computeTopK(LinkedList<Tile> rack, BoardSquare[][] board, int k, Comparator<Candidate> ordering)
+          throws IllegalArgumentException, UnsetTrieException, UnsetRackCapacityException {
+    return this.computeTopK(rack, board, k, ordering, null);
+  }
+
+  /**
+   * As <code>computeTopK()</code>, also reporting how many squares the search visited, which is how
+   * the effect of its pruning is measured.
+   *
+   * @param visits receives the number of calls to <code>generate()</code> that were not pruned
+   */
+  GeneratorResult computeTopK(LinkedList<Tile> rack, BoardSquare[][] board, int k, Comparator<Candidate> ordering, LongConsumer visits)
+          throws IllegalArgumentException, UnsetTrieException, UnsetRackCapacityException {
+    if (k <= 0 || ordering == null) {
+      throw new IllegalArgumentException();
+    }
+    TopCandidates top = new TopCandidates(k, ordering);
+    this.collect(toMultiset(rack), toCompact(board), Trie.ALL_LEXICONS, null, top::admits, visits, () -> top,
+            copying(TopCandidates::add), TopCandidates::addAll);
+    return new GeneratorResult(top.toList());
+  }
+
+  /**
+   * Runs a search from every hook, reporting each candidate found to a container in the manner of
+   * <code>Stream.collect()</code>: a sequential search reports everything to a single container,
+   * while the tasks of a parallel one each fill their own, which are then combined into the first.
+   * A search ends early once the accumulator returns {@code false}.
+   *
+   * @param pool   the pool on which to search from each hook and direction separately, or {@code null}
+   *               to search sequentially on the calling thread
+   * @param admits decides from its score alone whether a sequential search should build a candidate
+   *               at all, or {@code null} if every candidate should be
+   * @param visits receives the number of squares a sequential search visited once it ends, or is
+   *               {@code null} if nobody is counting
+   */
+  private <T> T collect(RackMultiset rack, CompactBoard board, int lexicons, ForkJoinPool pool, IntPredicate admits,
+                        LongConsumer visits, Supplier<T> supplier, BiPredicate<T, MoveView> accumulator, BiConsumer<T, T> combiner) {
+    // The configuration is read once, so that it cannot change halfway through the call
+    Supplier<DictionaryVersion> vocabulary = this.vocabulary;
+    Integer rackCapacity = this.rackCapacity;
+    int[] validHooks = validateInput(rack, board, vocabulary, rackCapacity);
+
+    // Everything below reads from this one version, whatever is published in the meantime
+    DictionaryVersion version = vocabulary.get();
+    T container = supplier.get();
+    if (rack.isEmpty() || version.isEmpty()) {
+      return container;
+    }
+    if (validHooks.length == 0) {
+      int midpoint = board.getDimensions() / 2;
+      validHooks = new int[]{midpoint * board.getDimensions() + midpoint};
+    }
+    int dimensions = board.getDimensions();
+
+    Scratch scratch = Scratch.acquire();
+    List<ForkJoinTask<T>> tasks = new ArrayList<>();
+    try {
+      Search search = new Search(board, version, lexicons, rackCapacity, rack, validHooks, scratch,
+              admits, move -> accumulator.test(container, move));
+      if (pool == null) {
+        if (search.bounds != null) {
+          searchBestLanesFirst(search, validHooks);
+        } else {
+          searchEveryLane(search, validHooks);
+        }
+        if (visits != null) {
+          visits.accept(search.visits);
+        }
+        return container;
+      }
+
+      for (int hook : validHooks) {
         for (Direction dir : Direction.primary) {
-          generate(x, y, x, y, rack, new LinkedList<>(), candidates, this.root, dir, board, dimensions);
+          T taskContainer = supplier.get();
+          Search task = new Search(search, search.rack.copy(), null,
+                  move -> accumulator.test(taskContainer, move));
+          tasks.add(pool.submit(() -> {
+            searchLane(task, hook % dimensions, hook / dimensions, dir);
+            return taskContainer;
+          }));
         }
-      };
+      }
+      for (ForkJoinTask<T> task : tasks) {
+        combiner.accept(container, task.join());
+      }
+      return container;
+    } finally {
+      // Every task reads the borrowed cross checks, so none may still be running once they are
+      // released, even when another task failed first
+      for (ForkJoinTask<T> task : tasks) {
+        task.quietlyJoin();
+      }
+      scratch.release();
+    }
+  }
 
-      if (validHooks.isEmpty()) {
-        int midpoint = dimensions / 2;
-        generateAtHook.accept(new Coordinates(midpoint, midpoint));
-      } else {
-        validHooks.forEach(generateAtHook);
+  /**
+   * @throws IllegalArgumentException if the rack, or any tile on it, is {@code null}
+   */
+  private static RackMultiset toMultiset(LinkedList<Tile> rack) throws IllegalArgumentException {
+    if (rack == null) {
+      throw new IllegalArgumentException();
+    }
+    return rack instanceof Rack ? ((Rack) rack).toMultiset() : new RackMultiset(rack);
+  }
+
+  /**
+   * Adapts an accumulator of candidates to one of views, copying each candidate it is offered and
+   * never ending the search.
+   */
+  private static <T> BiPredicate<T, MoveView> copying(BiConsumer<T, Candidate> accumulator) {
+    return (container, move) -> {
+      accumulator.accept(container, move.toCandidate());
+      return true;
+    };
+  }
+
+  private void searchEveryLane(Search search, int[] hooks) {
+    for (int hook : hooks) {
+      for (Direction dir : Direction.primary) {
+        if (search.stopped) {
+          return;
+        }
+        searchLane(search, hook % search.dimensions, hook / search.dimensions, dir);
       }
     }
+  }
 
-    return new GeneratorResult(candidates);
+  /**
+   * Searches from every hook and direction in descending order of the bound on what a candidate
+   * found there could score, skipping those that can no longer produce a candidate worth building.
+   */
+  private void searchBestLanesFirst(Search search, int[] hooks) {
+    int dimensions = search.dimensions;
+    int lanes = hooks.length * Direction.primary.length;
+    long[] bounds = new long[lanes];
+    Integer[] order = new Integer[lanes];
+    for (int i = 0; i < lanes; i++) {
+      int x = hooks[i / Direction.primary.length] % dimensions, y = hooks[i / Direction.primary.length] / dimensions;
+      Direction dir = Direction.primary[i % Direction.primary.length];
+      search.limit = search.getLimit(x, y, dir);
+      bounds[i] = search.getBound(dir, x, y, x, y, search.root);
+      order[i] = i;
+    }
+    Arrays.sort(order, (one, two) -> Long.compare(bounds[two], bounds[one]));
+    for (int i : order) {
+      if (search.stopped || !search.admits(bounds[i])) {
+        // Every lane after this one is bounded at least as tightly
+        break;
+      }
+      int hook = hooks[i / Direction.primary.length];
+      searchLane(search, hook % dimensions, hook / dimensions, Direction.primary[i % Direction.primary.length]);
+    }
+  }
+
+  /**
+   * Finds every candidate that passes through the given hook in the given direction.
+   */
+  private void searchLane(Search search, int x, int y, Direction dir) {
+    computeLane(search, x, y, dir);
+    search.limit = search.getLimit(x, y, dir);
+    search.primarySum = search.newTiles = search.crossScore = 0;
+    search.primaryMultiplier = 1;
+    generate(search, x, y, x, y, search.root, dir);
   }
 
-  private Set<Coordinates> validateInput(LinkedList<Tile> rack, BoardSquare[][] board)
+  /**
+   * @return the given board as a <code>CompactBoard</code>, which shares the standard layout if the
+   * board has the standard multipliers
+   * @throws IllegalArgumentException   if the board is {@code null}
+   * @throws InvalidBoardStateException if the board is not square or too large to hold as bitboards,
+   *                                    or a square has no multiplier
+   */
+  private static CompactBoard toCompact(BoardSquare[][] board) throws IllegalArgumentException, InvalidBoardStateException {
+    if (board == null) {
+      throw new IllegalArgumentException();
+    }
+    if (board.length > BoardLayout.MAX_DIMENSIONS) {
+      throw new InvalidBoardStateException();
+    }
+    for (BoardSquare[] minor : board) {
+      if (minor.length != board.length) {
+        throw new InvalidBoardStateException();
+      }
+      for (BoardSquare square : minor) {
+        if (square.getMultiplier() == null) {
+          throw new InvalidBoardStateException();
+        }
+      }
+    }
+    BoardLayout standard = Configuration.getStandardLayout();
+    return CompactBoard.of(board, standard.matches(board) ? standard : new BoardLayout(board));
+  }
+
+  /**
+   * @return the hooks of the board, as square indices in row order
+   */
+  private int[] validateInput(RackMultiset rack, CompactBoard board,
+                                        Supplier<DictionaryVersion> vocabulary, Integer rackCapacity)
           throws UnsetTrieException, UnsetRackCapacityException,
           InvalidBoardStateException, InvalidRackLengthException {
     if (rack == null || board == null) {
       throw new IllegalArgumentException();
     }
-    if (this.trie == null) {
+    if (vocabulary == null) {
       throw new UnsetTrieException();
     }
     if (rackCapacity == null) {
@@ -164,194 +525,469 @@ public class Generator {
     if (rack.size() > rackCapacity) {
       throw new InvalidRackLengthException(rackCapacity, rack.size());
     }
-    int dimensions = board.length;
+    int dimensions = board.getDimensions();
     if (dimensions < 3 || dimensions % 2 == 0) {
       throw new InvalidBoardStateException();
     }
-    Set<Coordinates> validHooks = new HashSet<>();
+    long[] rows = new long[dimensions];
+    int count = 0;
     for (int y = 0; y < dimensions; y++) {
-      BoardSquare[] minor = board[y];
-      if (minor.length != dimensions) {
-        throw new InvalidBoardStateException();
+      rows[y] = board.getHooks(y);
+      count += Long.bitCount(rows[y]);
+    }
+    int[] validHooks = new int[count];
+    for (int y = 0, i = 0; y < dimensions; y++) {
+      for (long hooks = rows[y]; hooks != 0; hooks &= hooks - 1) {
+        validHooks[i++] = y * dimensions + Long.numberOfTrailingZeros(hooks);
       }
-      for (int x = 0; x < dimensions; x++) {
-        BoardSquare square = minor[x];
-        if (square.getMultiplier() == null) {
-          throw new InvalidBoardStateException();
+    }
+    return validHooks;
+  }
+
+  private void generate(Search search, int hX, int hY, int x, int y, int node, Direction dir) {
+    if (search.stopped || search.bounds != null && !search.admits(search.getBound(dir, hX, hY, x, y, node))) {
+      return;
+    }
+    search.visits++;
+    int square = y * search.dimensions + x;
+    // Past the hook, a word can still grow in the inverse direction once the delimiter is crossed,
+    // though never onto another hook
+    int remainingSquares = dir == Direction.RIGHT || dir == Direction.DOWN ?
+            dir.distanceToEdge(x, y, search.dimensions) + search.getBehind(hX, hY, dir) :
+            search.getPosition(x, y, dir) - search.limit - 1;
+
+    if (search.board.isEmpty(square)) {
+      RackMultiset rack = search.rack;
+      // Copies of a tile lead to the same placements, so each distinct tile is tried once
+      for (int kind : search.kinds) {
+        if (rack.getCount(kind) == 0) {
+          continue;
+        }
+        Tile toPlace = rack.getTile(kind);
+        char letter = toPlace.getLetter();
+        if (search.alphabet.indexOf(letter) == Alphabet.NONE) {
+          // A letter that appears in no word cannot be placed
+          continue;
         }
-        if (square.getTile() == null) {
-          for (Direction dir : Direction.all) {
-            if (dir.nextTile(x, y, board) != null) {
-              validHooks.add(new Coordinates(x, y));
-              break;
-            }
+        rack.take(kind);
+        if (letter == Tile.BLANK) {
+          for (int i = 0, count = search.alphabet.getLetterCount(); i < count; i++) {
+            tryLetterPlacement(search, hX, hY, x, y, node, dir, toPlace, search.alphabet.getLetter(i), remainingSquares);
           }
+        } else {
+          tryLetterPlacement(search, hX, hY, x, y, node, dir, toPlace, letter, remainingSquares);
+        }
+        rack.putBack(kind);
+      }
+
+      if (search.placed.size > 0) {
+        turn(search, hX, hY, node, dir);
+      }
+    } else {
+      // No word can end inside a run of tiles already on the board, so the whole run is followed at once
+      int run = search.board.getRun(x, y, dir.normalize() == Direction.RIGHT, dir == Direction.RIGHT || dir == Direction.DOWN);
+      int child = node, sum = 0, followed = 0;
+      for (; followed < run; followed++, square += search.getStep(dir)) {
+        if ((child = search.graph.getChild(child, search.board.getLetter(square))) == NONE) {
+          break;
         }
+        search.placed.push(x + followed * dir.nX(0), y + followed * dir.nY(0), null, search.board.getLetter(square), true);
+        // Tiles already on the board count at face value
+        sum += search.board.getValue(square);
+      }
+      if (child != NONE) {
+        search.primarySum += sum;
+        evaluateAndProceed(search, hX, hY, x + (run - 1) * dir.nX(0), y + (run - 1) * dir.nY(0), child, dir,
+                remainingSquares - (run - 1));
+        search.primarySum -= sum;
+      }
+      for (; followed > 0; followed--) {
+        search.placed.pop();
       }
     }
-    return validHooks;
   }
 
-  private void generate(
-          int hX, int hY, int x, int y, LinkedList<Tile> rack, LinkedList<CrossedTilePlacement> placed,
-          Set<Candidate> all, TrieNode node, Direction dir,
-          BoardSquare[][] board, int dimensions) {
-    Tile existingTile = board[y][x].getTile();
-    Direction inv = dir.inverse();
-    TrieNode childNode;
+  /**
+   * Places the given tile at the given empty square as the given letter, if the square and the
+   * trie allow it, and continues the search from there.
+   */
+  private void tryLetterPlacement(Search search, int hX, int hY, int x, int y, int node, Direction dir,
+                                  Tile toPlace, char letter, int remainingSquares) {
+    int child;
+    if (!search.crossChecks.allows(x, y, dir, letter) ||
+            (child = search.graph.getChild(node, letter)) == NONE ||
+            !search.isWord(child) && !isReachable(search, child, remainingSquares)) {
+      return;
+    }
+    int square = y * search.dimensions + x;
+    int value = toPlace.getValue();
+    int primarySum = search.primarySum, primaryMultiplier = search.primaryMultiplier, crossScore = search.crossScore;
+    search.placed.push(x, y, toPlace, letter, false);
+    search.primarySum += value * search.board.getLetterMultiplier(square);
+    search.primaryMultiplier *= search.board.getWordMultiplier(square);
+    search.newTiles++;
+    if (search.crossChecks.hasCross(x, y, dir)) {
+      // The placement is the only new tile of its cross word
+      search.crossScore += search.crossChecks.getCrossScore(x, y, dir, value) + search.getBonus(1);
+    }
+    evaluateAndProceed(search, hX, hY, x, y, child, dir, remainingSquares);
+    search.primarySum = primarySum;
+    search.primaryMultiplier = primaryMultiplier;
+    search.crossScore = crossScore;
+    search.newTiles--;
+    search.placed.pop();
+  }
 
-    Consumer<TrieNode> evaluateAndProceed = child -> {
-      if (child.getTerminal() && dir.nextTile(x, y, board) == null &&
-              (dir.equals(Direction.LEFT) || dir.equals(Direction.UP) || inv.nextTile(hX, hY, board) == null)) {
-        all.add(buildCandidate(board, placed, dir));
+  /**
+   * Reports the placements made so far if they spell a word ending at the given square, then
+   * continues the search from the given node, onto the next square or around the hook.
+   */
+  private void evaluateAndProceed(Search search, int hX, int hY, int x, int y, int child, Direction dir, int remainingSquares) {
+    if (search.stopped) {
+      return;
+    }
+    int nX = dir.nX(x), nY = dir.nY(y);
+    if (search.isWord(child) && !search.isOccupied(nX, nY) &&
+            (dir == Direction.LEFT || dir == Direction.UP || !search.isOccupied(dir.inverse().nX(hX), dir.inverse().nY(hY)))) {
+      int score = search.getScore();
+      if (search.admits == null || search.admits.test(score)) {
+        search.report(dir, score);
       }
-      Coordinates next;
-      TrieNode crossAnchor;
-      if ((next = dir.nextCoordinates(x, y, dimensions)) != null) {
-        generate(hX, hY, next.getX(), next.getY(), rack, placed, all, child, dir, board, dimensions);
-      } else if ((crossAnchor = child.getChild(this.delimiter)) != null && (next = inv.nextCoordinates(hX, hY, dimensions)) != null) {
-        generate(hX, hY, next.getX(), next.getY(), rack, placed, all, crossAnchor, inv, board, dimensions);
+    }
+    if (dir == Direction.RIGHT || dir == Direction.DOWN ? search.isOnBoard(nX, nY) : search.getPosition(nX, nY, dir) > search.limit) {
+      if (isReachable(search, child, remainingSquares)) {
+        generate(search, hX, hY, nX, nY, child, dir);
       }
-    };
+    } else {
+      turn(search, hX, hY, child, dir);
+    }
+  }
 
-    if (existingTile == null) {
-      int currentPlacedCount = placed.size();
-      int rackCount = rack.size();
-
-      if (rackCount > 0) {
-        Set<Character> visited = new HashSet<>();
-
-        for (int r = 0; r < rackCount; r++) {
-          Tile toPlace = rack.removeFirst();
-
-          BiConsumer<Character, Boolean> tryLetterPlacement = (letter, isBlank) -> {
-            Tile resolvedTile = isBlank ? new Tile(toPlace.getLetter(), toPlace.getValue(), letter) : toPlace;
-            TrieNode child;
-            Set<TilePlacement> cross;
-            if ((child = node.getChild(letter)) != null && (cross = computeCrossWord(x, y, resolvedTile, dir, board)) != null) {
-              TilePlacement root = new TilePlacement(x, y, resolvedTile);
-              Set<TilePlacement> resolvedCross = cross.size() > 0 ? cross : null;
-              placed.add(new CrossedTilePlacement(root, resolvedCross));
-              evaluateAndProceed.accept(child);
-              while (placed.size() > currentPlacedCount) {
-                placed.removeLast();
-              }
-            }
-          };
-
-          char letter = toPlace.getLetter();
-          if (!visited.contains(letter)) {
-            visited.add(letter);
-            if (letter == Tile.BLANK) {
-              for (char l : this.alphabet) {
-                tryLetterPlacement.accept(l, true);
-              }
-            } else {
-              tryLetterPlacement.accept(letter, false);
-            }
-          }
+  /**
+   * Continues the search from the given node behind the hook, in the inverse direction, if the
+   * trie allows the word to be turned around there and the square behind the hook is not itself
+   * a hook.
+   */
+  private void turn(Search search, int hX, int hY, int node, Direction dir) {
+    Direction inv = dir.inverse();
+    int crossAnchor;
+    if (search.getBehind(hX, hY, dir) > 0 && (crossAnchor = search.graph.getChild(node, search.delimiter)) != NONE &&
+            isReachable(search, crossAnchor, search.getBehind(hX, hY, dir))) {
+      generate(search, hX, hY, inv.nX(hX), inv.nY(hY), crossAnchor, inv);
+    }
+  }
 
-          rack.add(toPlace);
-        }
-      }
+  private void computeLane(Search search, int x, int y, Direction dir) {
+    search.laneLetters = 0;
+    search.laneTiles = 0;
+    CompactBoard board = search.board;
+    int dimensions = search.dimensions;
+    boolean horizontal = dir.normalize() == Direction.RIGHT;
+    long occupied = horizontal ? board.getRow(y) : board.getColumn(x);
+    search.laneTiles = Long.bitCount(occupied);
+    for (; occupied != 0; occupied &= occupied - 1) {
+      int i = Long.numberOfTrailingZeros(occupied);
+      search.laneLetters |= search.alphabet.getMask(board.getLetter(horizontal ? y * dimensions + i : i * dimensions + x));
+    }
+  }
 
-      TrieNode crossAnchor;
-      Coordinates next;
-      if (currentPlacedCount > 0 && (crossAnchor = node.getChild(this.delimiter)) != null && (next = inv.nextCoordinates(hX, hY, dimensions)) != null) {
-        generate(hX, hY, next.getX(), next.getY(), rack, placed, all, crossAnchor, inv, board, dimensions);
+  /**
+   * Decides, from the summary the snapshot keeps of the subtree below the given node, whether
+   * any of its words in the selected lexicons could still be completed. Every letter that follows has to come from the
+   * rack or from a tile already in the current line, and has to fit in the squares that remain.
+   *
+   * @param node    the node from which the search would continue
+   * @param squares the number of squares left in the line, in whichever directions remain to be searched
+   * @return {@code false} if no word below the node can be completed
+   */
+  private boolean isReachable(Search search, int node, int squares) {
+    long available = search.laneLetters;
+    RackMultiset rack = search.rack;
+    for (int kind = 0, count = rack.getKindCount(); kind < count; kind++) {
+      if (rack.getCount(kind) == 0) {
+        continue;
       }
-    } else if ((childNode = node.getChild(existingTile.getResolvedLetter())) != null) {
-      placed.add(new CrossedTilePlacement(new TilePlacement(x, y, existingTile, true), null));
-      evaluateAndProceed.accept(childNode);
+      char letter = rack.getTile(kind).getLetter();
+      if (letter == Tile.BLANK) {
+        available = -1L;
+        break;
+      }
+      available |= search.alphabet.getMask(letter);
     }
+    TrieSnapshot graph = search.graph;
+    return (graph.getReachableLexicons(node) & search.lexicons) != 0 &&
+            (graph.getReachableLetters(node) & available) != 0 &&
+            graph.getMinimumDepth(node) <= Math.min(squares, rack.size() + search.laneTiles);
   }
 
-  private Set<TilePlacement> computeCrossWord(int sX, int sY, Tile toPlace, Direction dir,
-                                              BoardSquare[][] board) {
-    dir = dir.perpendicular();
-    if (dir.nextTile(sX, sY, board) == null && dir.inverse().nextTile(sX, sY, board) == null) {
-      return Collections.emptySet();
+  /**
+   * The state of a search for candidates. The board, the vocabulary and the tables derived from
+   * them are fixed for a whole call to <code>compute()</code> and shared by every search it starts,
+   * while the rack, the placements made so far and everything tracked alongside them belong to a
+   * single search, so that a <code>Generator</code> keeps no state of its own between calls.
+   * <p>
+   * Every play is found exactly once. A play covers at least one hook of its line, and it is
+   * searched for only from the first of them, in reading order: the part of a word built behind its
+   * hook, after the delimiter is crossed, may cover tiles already on the board but never another
+   * hook, which it would instead be found from. This is the anchor discipline of Appel and
+   * Jacobson, under which no play is reported from two hooks and no candidate needs comparing with
+   * the others to be kept.
+   */
+  private static final class Search {
+
+    private final CompactBoard board;
+    private final int dimensions;
+    // The packed, immutable image of the vocabulary that all word traversals read from
+    private final TrieSnapshot graph;
+    // The root of the trie representing the vocabulary. All word traversals start here.
+    private final int root;
+    // The delimiter used to denote a direction inversion in the PermutationTrie
+    private final char delimiter;
+    // A direct result of the trie's contents, not necessarily just [a-z], followed by the delimiter and the blank
+    private final Alphabet alphabet;
+    // The lexicons a word must belong to in order to be played
+    private final int lexicons;
+    private final int rackCapacity;
+    // The letters each empty square accepts, given the cross words it would form on the board
+    private final CrossChecks crossChecks;
+
+    // The hooks of the board as bitboards, by row and by column, like the occupancy of CompactBoard
+    private final long[] hookRows;
+    private final long[] hookColumns;
+    // The position, along the lane being searched, of the nearest hook behind the lane's own, or -1
+    private int limit;
+
+    private final RackMultiset rack;
+    // The indices of the rack's distinct tiles, in the order they are tried at each square
+    private final int[] kinds;
+    // Bounds the score reachable from a partial placement, when only the best candidates are wanted
+    private final ScoreBounds bounds;
+    // Scratch space for the values of the tiles left on the rack, most valuable first
+    private final int[] values;
+    private final PlacementStack placed;
+    // Decides from its score whether a candidate is worth building, if not every one is
+    private final IntPredicate admits;
+    // Receives every candidate the search finds, through a view rebound to each in turn
+    private final CandidateSink sink;
+    private final MoveView view;
+    // Set once the sink has asked for the search to end
+    private boolean stopped;
+    // The letters (as an Alphabet mask) and the number of tiles already on the board
+    // in the line currently being searched, which are the only ones a word can use besides the rack
+    private long laneLetters;
+    private int laneTiles;
+    // The score of the placements made so far, kept up to date as generate() places and lifts tiles:
+    // the primary word's letter sum, word multiplier and number of new tiles, and the total of every
+    // cross word formed along the way
+    private int primarySum;
+    private int primaryMultiplier = 1;
+    private int newTiles;
+    private int crossScore;
+    // The number of calls to generate() that were not pruned
+    private long visits;
+
+    private Search(CompactBoard board, DictionaryVersion version, int lexicons, int rackCapacity,
+                   RackMultiset rack, int[] hooks, Scratch scratch, IntPredicate admits, CandidateSink sink) {
+      this.board = board;
+      this.dimensions = board.getDimensions();
+      this.hookRows = new long[this.dimensions];
+      this.hookColumns = new long[this.dimensions];
+      for (int hook : hooks) {
+        this.hookRows[hook / this.dimensions] |= 1L << hook % this.dimensions;
+        this.hookColumns[hook % this.dimensions] |= 1L << hook / this.dimensions;
+      }
+      this.graph = version.getSnapshot();
+      this.root = this.graph.getRoot();
+      this.delimiter = version.getDelimiter();
+      this.alphabet = scratch.getAlphabet(version);
+      this.lexicons = lexicons;
+      this.rackCapacity = rackCapacity;
+      this.crossChecks = scratch.getCrossChecks(this.dimensions);
+      this.crossChecks.reset(board, this.graph, this.alphabet, this.delimiter, lexicons);
+      // The search takes tiles off the rack as it goes, which must not disturb the caller's
+      this.rack = rack.copy();
+      this.placed = new PlacementStack(this.dimensions);
+      this.admits = admits;
+      this.sink = sink;
+      this.view = new MoveView(this.dimensions);
+      if (admits != null) {
+        // The most valuable tiles are tried first, as they are the likeliest to lead to the best candidates
+        Integer[] kinds = new Integer[this.rack.getKindCount()];
+        for (int kind = 0; kind < kinds.length; kind++) {
+          kinds[kind] = kind;
+        }
+        Arrays.sort(kinds, Comparator.comparingInt((Integer kind) -> this.rack.getTile(kind).getValue()).reversed());
+        this.kinds = new int[kinds.length];
+        for (int i = 0; i < kinds.length; i++) {
+          this.kinds[i] = kinds[i];
+        }
+        int maxValue = this.rack.getTile(this.kinds[0]).getValue();
+        this.bounds = new ScoreBounds(board, this.crossChecks, maxValue, this.getBonus(1), STANDARD_BINGO);
+        this.values = new int[this.rack.size()];
+      } else {
+        this.kinds = kindsOf(this.rack);
+        this.bounds = null;
+        this.values = null;
+      }
     }
-    Set<TilePlacement> placements = new HashSet<>();
-    Tile tile = toPlace;
-    TrieNode node = this.root;
-    int x = sX;
-    int y = sY;
-    Direction original = dir;
 
-    while (tile != null) {
-      placements.add(new TilePlacement(x, y, tile));
-      if ((node = node.getChild(tile.getResolvedLetter())) == null) {
-        break;
+    // Shares everything fixed for the call with the given search, but has a rack and sink of its own
+    private Search(Search call, RackMultiset rack, IntPredicate admits, CandidateSink sink) {
+      this.board = call.board;
+      this.dimensions = call.dimensions;
+      this.hookRows = call.hookRows;
+      this.hookColumns = call.hookColumns;
+      this.graph = call.graph;
+      this.root = call.root;
+      this.delimiter = call.delimiter;
+      this.alphabet = call.alphabet;
+      this.lexicons = call.lexicons;
+      this.rackCapacity = call.rackCapacity;
+      this.crossChecks = call.crossChecks;
+      this.rack = rack;
+      this.kinds = kindsOf(rack);
+      this.placed = new PlacementStack(this.dimensions);
+      this.admits = admits;
+      this.sink = sink;
+      this.view = new MoveView(this.dimensions);
+      this.bounds = null;
+      this.values = null;
+    }
+
+    private static int[] kindsOf(RackMultiset rack) {
+      int[] kinds = new int[rack.getKindCount()];
+      for (int kind = 0; kind < kinds.length; kind++) {
+        kinds[kind] = kind;
       }
-      TilePlacement next;
-      if ((next = dir.nextTile(x, y, board)) != null) {
-        x = next.getX();
-        y = next.getY();
-        tile = next.getTile();
-      } else {
-        dir = dir.inverse();
-        if (dir.equals(original) || (next = dir.nextTile(sX, sY, board)) == null) {
-          break;
+      return kinds;
+    }
+
+    private boolean admits(long score) {
+      return this.admits.test((int) Math.min(score, Integer.MAX_VALUE));
+    }
+
+    // Bounds the score of any candidate completing the placements made so far, from the given node
+    private long getBound(Direction dir, int hX, int hY, int x, int y, int node) {
+      // The kinds are ordered by value, so this lists the tiles left on the rack most valuable first.
+      // A bingo places every one of them, which a tile whose letter appears nowhere below the node rules out.
+      long reachable = this.graph.getReachableLetters(node);
+      int tiles = 0;
+      boolean bingo = true;
+      for (int kind : this.kinds) {
+        int count = this.rack.getCount(kind);
+        Tile tile = this.rack.getTile(kind);
+        if (count > 0 && tile.getLetter() != Tile.BLANK && (reachable & this.alphabet.getMask(tile.getLetter())) == 0) {
+          bingo = false;
         }
-        x = next.getX();
-        y = next.getY();
-        tile = next.getTile();
-        if (tile != null && (node = node.getChild(this.delimiter)) == null) {
-          break;
+        for (; count > 0; count--) {
+          this.values[tiles++] = tile.getValue();
         }
       }
+      return this.bounds.getBound(dir, hX, hY, this.limit, x, y, this.primarySum, this.primaryMultiplier, this.crossScore,
+              this.values, tiles, this.graph.getMaximumDepth(node), bingo ? this.rackCapacity - this.newTiles : Integer.MAX_VALUE);
     }
 
-    if (node != null && node.getTerminal()) {
-      return placements;
+    // Reports the placements made so far to the sink, as a candidate with the given score
+    private void report(Direction dir, int score) {
+      this.view.bind(this.placed, this.board, this.crossChecks, dir, score, this.newTiles, this.newTiles == this.rackCapacity);
+      if (!this.sink.accept(this.view)) {
+        this.stopped = true;
+      }
     }
-    return null;
-  }
 
-  private Candidate buildCandidate(BoardSquare[][] board, List<CrossedTilePlacement> placements,
-                                   Direction dir) {
-    Set<Set<TilePlacement>> crosses = new HashSet<>();
-    Set<TilePlacement> primary = new HashSet<>();
+    // The position of the given square along a line in the given direction
+    private int getPosition(int x, int y, Direction dir) {
+      return dir.normalize() == Direction.RIGHT ? x : y;
+    }
 
-    for (CrossedTilePlacement placement : placements) {
-      primary.add(placement.getRoot());
-      if (placement.getCross() != null) {
-        crosses.add(placement.getCross());
-      }
+    // The position of the nearest hook before the given one along its line, or -1 if there is none
+    private int getLimit(int hX, int hY, Direction dir) {
+      int position = this.getPosition(hX, hY, dir);
+      long hooks = dir.normalize() == Direction.RIGHT ? this.hookRows[hY] : this.hookColumns[hX];
+      hooks &= (1L << position) - 1;
+      return hooks == 0 ? -1 : Long.SIZE - 1 - Long.numberOfLeadingZeros(hooks);
+    }
+
+    // The number of squares behind the given hook that a word through it may cover
+    private int getBehind(int hX, int hY, Direction dir) {
+      return this.getPosition(hX, hY, dir) - this.limit - 1;
+    }
+
+    private boolean isOnBoard(int x, int y) {
+      return x >= 0 && x < this.dimensions && y >= 0 && y < this.dimensions;
+    }
+
+    private boolean isOccupied(int x, int y) {
+      return this.isOnBoard(x, y) && (this.board.getRow(y) >>> x & 1) != 0;
+    }
+
+    // The distance between the indices of consecutive squares in the given direction
+    private int getStep(Direction dir) {
+      return dir.nX(0) + dir.nY(0) * this.dimensions;
     }
 
-    int score = computeWordScore(board, primary);
-    for (Set<TilePlacement> word : crosses) {
-      score += computeWordScore(board, word);
+    private boolean isWord(int node) {
+      return (this.graph.getLexicons(node) & this.lexicons) != 0;
+    }
+
+    // The score of the placements made so far, were they to form a word
+    private int getScore() {
+      return this.primarySum * this.primaryMultiplier + this.getBonus(this.newTiles) + this.crossScore;
+    }
+
+    private int getBonus(int newTiles) {
+      return newTiles == this.rackCapacity ? STANDARD_BINGO : 0;
     }
 
-    return new Candidate(primary, crosses, dir.normalize(), score);
   }
 
-  private int computeWordScore(BoardSquare[][] board, Set<TilePlacement> placements) {
-    int wordMultiplier = 1;
-    int newTiles = 0, sum = 0;
-    for (TilePlacement placement : placements) {
-      Tile tile = placement.getTile();
-      BoardSquare state = board[placement.getY()][placement.getX()];
-      if (state.getTile() == null) {
-        newTiles++;
+  /**
+   * The tables a call to <code>compute()</code> can borrow from its thread instead of allocating
+   * them. A call that finds them taken, as happens when a pool worker runs another queued call
+   * while it waits on tasks of its own, allocates a set of its own instead.
+   */
+  private static final class Scratch {
+
+    private boolean inUse = false;
+    private CrossChecks crossChecks;
+    // The alphabet derived for the snapshot of the call in progress. Neither outlives the call, so
+    // that an idle thread never keeps a superseded version from being reclaimed.
+    private TrieSnapshot graph;
+    private Alphabet alphabet;
+
+    private static Scratch acquire() {
+      Scratch scratch = SCRATCH.get();
+      if (scratch.inUse) {
+        scratch = new Scratch();
       }
-      Multiplier multiplier = state.getMultiplier();
-      if (multiplier == null || state.getTile() != null) {
-        sum += tile.getValue();
-      } else {
-        sum += (multiplier.getLetterValue() * tile.getValue());
-        wordMultiplier *= multiplier.getWordValue();
+      scratch.inUse = true;
+      return scratch;
+    }
+
+    private void release() {
+      this.graph = null;
+      this.alphabet = null;
+      if (this.crossChecks != null) {
+        this.crossChecks.clear();
       }
+      this.inUse = false;
     }
 
-    int total = sum * wordMultiplier;
-    if (newTiles == rackCapacity) {
-      total += STANDARD_BINGO;
+    private CrossChecks getCrossChecks(int dimensions) {
+      if (this.crossChecks == null || this.crossChecks.getDimensions() != dimensions) {
+        this.crossChecks = new CrossChecks(dimensions);
+      }
+      return this.crossChecks;
     }
-    return total;
+
+    private Alphabet getAlphabet(DictionaryVersion version) {
+      if (this.graph != version.getSnapshot()) {
+        this.alphabet = version.getAlphabet().withSymbols(Tile.BLANK);
+        this.graph = version.getSnapshot();
+      }
+      return this.alphabet;
+    }
+
   }
 
-}
\ No newline at end of file
+}
@@ -12,16 +12,53 @@ import java.util.stream.Stream;
 
 public class GeneratorResult implements Iterable<Candidate> {
 
-  private final Set<Candidate> candidateSet;
+  private Set<Candidate> candidateSet = null;
   private List<Candidate> candidateList = null;
+  // The candidates as the search packed them, each built into a Candidate the first time it is needed
+  private PackedMoves packed = null;
+  private Candidate[] unpacked = null;
 
   private List<Candidate> getCandidateList() {
     if (this.candidateList == null) {
-      this.candidateList = new ArrayList<>(this.candidateSet);
+      this.candidateList = this.packed != null ? new Unpacking() : new ArrayList<>(this.candidateSet);
     }
     return this.candidateList;
   }
 
+  private Candidate unpack(int index) {
+    if (this.unpacked == null) {
+      this.unpacked = new Candidate[this.packed.size()];
+    }
+    Candidate candidate = this.unpacked[index];
+    if (candidate == null) {
+      candidate = this.unpacked[index] = this.packed.toCandidate(index);
+    }
+    return candidate;
+  }
+
+  // Lists the packed candidates in the order they were found, building each as it is reached
+  private final class Unpacking extends AbstractList<Candidate> implements RandomAccess {
+
+    @Override
+    public Candidate get(int index) {
+      Objects.checkIndex(index, this.size());
+      return GeneratorResult.this.unpack(index);
+    }
+
+    @Override
+    public int size() {
+      return GeneratorResult.this.packed.size();
+    }
+
+  }
+
+  private Set<Candidate> getCandidateSet() {
+    if (this.candidateSet == null) {
+      this.candidateSet = new LinkedHashSet<>(this.getCandidateList());
+    }
+    return this.candidateSet;
+  }
+
   public GeneratorResult() {
     this.candidateSet = new HashSet<>();
   }
@@ -30,12 +67,31 @@ public class GeneratorResult implements Iterable<Candidate> {
     this.candidateSet = candidates;
   }
 
+  /**
+   * @param candidates distinct candidates, in the order they should be listed, which are only
+   *                   hashed into a set if <code>asSet()</code> asks for one
+   */
+  GeneratorResult(List<Candidate> candidates) {
+    this.candidateList = candidates;
+  }
+
+  /**
+   * @param moves distinct candidates, in the order they should be listed until <code>orderBy()</code>
+   *              is asked for another
+   */
+  GeneratorResult(PackedMoves moves) {
+    this.packed = moves;
+  }
+
   public int size() {
-    return this.candidateSet.size();
+    if (this.packed != null) {
+      return this.packed.size();
+    }
+    return this.candidateList != null ? this.candidateList.size() : this.candidateSet.size();
   }
 
   public boolean isEmpty() {
-    return this.candidateSet.isEmpty();
+    return this.size() == 0;
   }
 
   public Candidate get(int index) throws IndexOutOfBoundsException {
@@ -44,7 +100,11 @@ public class GeneratorResult implements Iterable<Candidate> {
 
   public GeneratorResult orderBy(Comparator<Candidate> ordering) {
     if (ordering != null) {
-      this.getCandidateList().sort(ordering);
+      if (this.getCandidateList() instanceof Unpacking) {
+        // Sorting compares whole candidates, so every one of them has to be built
+        this.candidateList = new ArrayList<>(this.candidateList);
+      }
+      this.candidateList.sort(ordering);
     }
     return this;
   }
@@ -63,7 +123,7 @@ public class GeneratorResult implements Iterable<Candidate> {
   }
 
   public Set<Candidate> asSet() {
-    return this.candidateSet;
+    return this.getCandidateSet();
   }
 
   public List<Object> asCandidateList(Integer pageSize) {
@@ -0,0 +1,179 @@
+package com.swilkins.ScrabbleBase.Generation;
+
+import com.swilkins.ScrabbleBase.Board.Location.TilePlacement;
+import com.swilkins.ScrabbleBase.Board.State.CompactBoard;
+import com.swilkins.ScrabbleBase.Board.State.Tile;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * A read-only view of the candidate a search has just found, as handed to a
+ * <code>CandidateSink</code>. A search binds the same instance to every candidate it finds, and the
+ * view answers from the search's own arrays, so looking at a candidate allocates nothing unless
+ * <code>getPlacement()</code> or <code>toCandidate()</code> is asked for. The view only describes a
+ * candidate until the sink returns: a sink that wants to keep it has to copy it with <code>toCandidate()</code>.
+ */
+public final class MoveView {
+
+  private PlacementStack placed;
+  private CompactBoard board;
+  private CrossChecks crossChecks;
+  // The index in the stack of each placement of the primary word, in reading order
+  private final int[] order;
+  private Direction direction;
+  private int score;
+  private int newTiles;
+  private boolean bingo;
+
+  MoveView(int dimensions) {
+    this.order = new int[dimensions];
+  }
+
+  /**
+   * Describes the given placements from now on, which must spell a primary word in the given direction.
+   */
+  void bind(PlacementStack placed, CompactBoard board, CrossChecks crossChecks, Direction direction, int score, int newTiles, boolean bingo) {
+    int[] positions = direction.normalize() == Direction.RIGHT ? placed.xs : placed.ys;
+    // The search places tiles ahead of the hook before those behind it, so they are put back in order
+    int first = Integer.MAX_VALUE;
+    for (int i = 0; i < placed.size; i++) {
+      first = Math.min(first, positions[i]);
+    }
+    for (int i = 0; i < placed.size; i++) {
+      this.order[positions[i] - first] = i;
+    }
+    this.placed = placed;
+    this.board = board;
+    this.crossChecks = crossChecks;
+    this.direction = direction.normalize();
+    this.score = score;
+    this.newTiles = newTiles;
+    this.bingo = bingo;
+  }
+
+  public int getScore() {
+    return this.score;
+  }
+
+  public DirectionName getDirection() {
+    return this.direction.name();
+  }
+
+  /**
+   * @return the number of tiles in the primary word, including those already on the board
+   */
+  public int size() {
+    return this.placed.size;
+  }
+
+  private int indexOf(int index) throws IndexOutOfBoundsException {
+    if (index < 0 || index >= this.placed.size) {
+      throw new IndexOutOfBoundsException();
+    }
+    return this.order[index];
+  }
+
+  /**
+   * @return the column of the tile of the primary word at the given index, in reading order
+   */
+  public int getX(int index) throws IndexOutOfBoundsException {
+    return this.placed.xs[this.indexOf(index)];
+  }
+
+  /**
+   * @return the row of the tile of the primary word at the given index, in reading order
+   */
+  public int getY(int index) throws IndexOutOfBoundsException {
+    return this.placed.ys[this.indexOf(index)];
+  }
+
+  /**
+   * @return the letter the tile of the primary word at the given index stands for, in reading order
+   */
+  public char getLetter(int index) throws IndexOutOfBoundsException {
+    return this.placed.letters[this.indexOf(index)];
+  }
+
+  /**
+   * @return whether the tile of the primary word at the given index, in reading order, was already on the board
+   */
+  public boolean isExisting(int index) throws IndexOutOfBoundsException {
+    return this.placed.existing[this.indexOf(index)];
+  }
+
+  /**
+   * @return the face value of the tile of the primary word at the given index, in reading order
+   */
+  public int getValue(int index) throws IndexOutOfBoundsException {
+    int i = this.indexOf(index);
+    if (this.placed.existing[i]) {
+      return this.board.getValue(this.placed.ys[i] * this.board.getDimensions() + this.placed.xs[i]);
+    }
+    return this.placed.tiles[i].getValue();
+  }
+
+  /**
+   * @return whether the tile of the primary word at the given index, in reading order, is a blank
+   */
+  public boolean isBlank(int index) throws IndexOutOfBoundsException {
+    int i = this.indexOf(index);
+    if (this.placed.existing[i]) {
+      return this.board.isBlank(this.placed.ys[i] * this.board.getDimensions() + this.placed.xs[i]);
+    }
+    return this.placed.tiles[i].getLetter() == Tile.BLANK;
+  }
+
+  /**
+   * @return a new <code>TilePlacement</code> for the tile of the primary word at the given index, in reading order
+   */
+  public TilePlacement getPlacement(int index) throws IndexOutOfBoundsException {
+    return this.toPlacement(this.indexOf(index));
+  }
+
+  private TilePlacement toPlacement(int i) {
+    Tile tile = this.placed.tiles[i];
+    if (this.placed.existing[i]) {
+      tile = this.board.getTile(this.placed.ys[i] * this.board.getDimensions() + this.placed.xs[i]);
+      return new TilePlacement(this.placed.xs[i], this.placed.ys[i], tile, true);
+    }
+    if (tile.getLetter() == Tile.BLANK) {
+      tile = new Tile(tile.getLetter(), tile.getValue(), this.placed.letters[i]);
+    }
+    return new TilePlacement(this.placed.xs[i], this.placed.ys[i], tile);
+  }
+
+  /**
+   * @return the number of tiles the candidate takes from the rack
+   */
+  public int getNewTileCount() {
+    return this.newTiles;
+  }
+
+  /**
+   * @return whether the candidate uses the whole rack, and so earns the bingo
+   */
+  public boolean isBingo() {
+    return this.bingo;
+  }
+
+  /**
+   * @return a <code>Candidate</code> describing the same play, which remains valid after the sink returns
+   */
+  public Candidate toCandidate() {
+    Set<Set<TilePlacement>> crosses = new HashSet<>();
+    Set<TilePlacement> primary = new HashSet<>();
+    for (int i = 0; i < this.placed.size; i++) {
+      TilePlacement placement = this.toPlacement(i);
+      primary.add(placement);
+      if (!placement.getIsExisting()) {
+        Set<TilePlacement> cross = this.crossChecks.getCross(this.direction, placement);
+        if (cross != null) {
+          crosses.add(cross);
+        }
+      }
+    }
+    return new Candidate(primary, crosses, this.direction, this.score);
+  }
+
+}
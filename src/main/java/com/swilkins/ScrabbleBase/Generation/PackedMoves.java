@@ -0,0 +1,161 @@
+package com.swilkins.ScrabbleBase.Generation;
+
+import com.swilkins.ScrabbleBase.Board.Location.TilePlacement;
+import com.swilkins.ScrabbleBase.Board.State.CompactBoard;
+import com.swilkins.ScrabbleBase.Board.State.Tile;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Candidates packed one after another into a shared <code>int[]</code> arena instead of each being
+ * held as a <code>Candidate</code>, with its sets of <code>TilePlacement</code>s and their
+ * <code>Tile</code>s. A move takes three ints: its score, its direction and first square, and the
+ * length of its primary word. Then every tile of the primary word in reading order takes one int for
+ * its letter and flags, followed by another for its value if it is a new tile.
+ * <p>
+ * Cross words are not stored at all. They follow from the new tiles and the board, which the moves
+ * share, so <code>toCandidate()</code> rebuilds them along with everything else.
+ */
+final class PackedMoves {
+
+  private static final int HEADER = 3;
+  // Flags kept above the letter of a tile
+  private static final int EXISTING = 1 << 16;
+  private static final int BLANK = 1 << 17;
+
+  private final CompactBoard board;
+  private int[] arena;
+  private int used;
+  // The index in the arena of the header of each move
+  private int[] offsets;
+  private int count;
+
+  /**
+   * @param board the board every move is played on, which must not change while the moves are in use
+   */
+  PackedMoves(CompactBoard board) {
+    this.board = board;
+    this.arena = new int[1 << 10];
+    this.offsets = new int[1 << 6];
+  }
+
+  /**
+   * Copies the candidate the given view describes to the end of the arena.
+   */
+  void add(MoveView move) {
+    int length = move.size();
+    this.ensureCapacity(HEADER + 2 * length);
+    if (this.count == this.offsets.length) {
+      this.offsets = Arrays.copyOf(this.offsets, this.count * 2);
+    }
+    this.offsets[this.count++] = this.used;
+    int[] arena = this.arena;
+    int i = this.used;
+    arena[i++] = move.getScore();
+    int horizontal = move.getDirection() == DirectionName.RIGHT ? 1 : 0;
+    arena[i++] = (move.getY(0) * this.board.getDimensions() + move.getX(0)) << 1 | horizontal;
+    arena[i++] = length;
+    for (int t = 0; t < length; t++) {
+      if (move.isExisting(t)) {
+        arena[i++] = move.getLetter(t) | EXISTING;
+      } else {
+        arena[i++] = move.getLetter(t) | (move.isBlank(t) ? BLANK : 0);
+        arena[i++] = move.getValue(t);
+      }
+    }
+    this.used = i;
+  }
+
+  /**
+   * Appends every move of the given arena, which must share this one's board.
+   */
+  void addAll(PackedMoves other) {
+    this.ensureCapacity(other.used);
+    if (this.count + other.count > this.offsets.length) {
+      this.offsets = Arrays.copyOf(this.offsets, Math.max(this.count + other.count, this.offsets.length * 2));
+    }
+    System.arraycopy(other.arena, 0, this.arena, this.used, other.used);
+    for (int m = 0; m < other.count; m++) {
+      this.offsets[this.count++] = other.offsets[m] + this.used;
+    }
+    this.used += other.used;
+  }
+
+  private void ensureCapacity(int needed) {
+    if (this.used + needed > this.arena.length) {
+      this.arena = Arrays.copyOf(this.arena, Math.max(this.used + needed, this.arena.length * 2));
+    }
+  }
+
+  int size() {
+    return this.count;
+  }
+
+  int getScore(int move) {
+    return this.arena[this.offsets[move]];
+  }
+
+  /**
+   * @return a new <code>Candidate</code> equal to the one <code>MoveView.toCandidate()</code> built
+   * for the given move when it was found
+   */
+  Candidate toCandidate(int move) {
+    int[] arena = this.arena;
+    int i = this.offsets[move];
+    int dimensions = this.board.getDimensions();
+    int score = arena[i++];
+    boolean horizontal = (arena[i] & 1) != 0;
+    int square = arena[i++] >>> 1;
+    int length = arena[i++];
+    Direction direction = horizontal ? Direction.RIGHT : Direction.DOWN;
+    int step = horizontal ? 1 : dimensions;
+
+    Set<TilePlacement> primary = new HashSet<>();
+    Set<Set<TilePlacement>> crosses = new HashSet<>();
+    for (int t = 0; t < length; t++, square += step) {
+      int x = square % dimensions, y = square / dimensions;
+      int tile = arena[i++];
+      if ((tile & EXISTING) != 0) {
+        primary.add(new TilePlacement(x, y, this.board.getTile(square), true));
+        continue;
+      }
+      char letter = (char) tile;
+      int value = arena[i++];
+      TilePlacement placed = new TilePlacement(x, y,
+              (tile & BLANK) != 0 ? new Tile(Tile.BLANK, value, letter) : new Tile(letter, value, null));
+      primary.add(placed);
+      Set<TilePlacement> cross = this.getCross(placed, !horizontal);
+      if (cross != null) {
+        crosses.add(cross);
+      }
+    }
+    return new Candidate(primary, crosses, direction, score);
+  }
+
+  /**
+   * @param horizontal whether the cross word runs along a row
+   * @return every tile of the cross word the given new tile spells, including the tile itself, or
+   * {@code null} if it spells none
+   */
+  private Set<TilePlacement> getCross(TilePlacement placed, boolean horizontal) {
+    int x = placed.getX(), y = placed.getY();
+    int position = horizontal ? x : y;
+    int last = this.board.getDimensions() - 1;
+    int before = position == 0 ? 0 :
+            this.board.getRun(horizontal ? x - 1 : x, horizontal ? y : y - 1, horizontal, false);
+    int after = position == last ? 0 :
+            this.board.getRun(horizontal ? x + 1 : x, horizontal ? y : y + 1, horizontal, true);
+    if (before == 0 && after == 0) {
+      return null;
+    }
+    Set<TilePlacement> cross = new HashSet<>();
+    for (int i = -before; i <= after; i++) {
+      int nX = horizontal ? x + i : x, nY = horizontal ? y : y + i;
+      cross.add(i == 0 ? placed : new TilePlacement(nX, nY, this.board.getTile(nY * this.board.getDimensions() + nX)));
+    }
+    return cross;
+  }
+
+}
@@ -0,0 +1,43 @@
+package com.swilkins.ScrabbleBase.Generation;
+
+import com.swilkins.ScrabbleBase.Board.State.Tile;
+
+/**
+ * The squares a search has filled so far, in the order it filled them, held in arrays sized once
+ * for the longest word a board allows. Pushing and popping a placement only writes a few array
+ * elements, so the search can place and lift tiles without allocating anything; the
+ * <code>TilePlacement</code>s describing them are only built for a candidate that is kept.
+ */
+final class PlacementStack {
+
+  final int[] xs;
+  final int[] ys;
+  // The rack tile placed on each square, whose letter for a blank is only in letters, or null for a
+  // tile already on the board
+  final Tile[] tiles;
+  final char[] letters;
+  final boolean[] existing;
+  int size;
+
+  PlacementStack(int capacity) {
+    this.xs = new int[capacity];
+    this.ys = new int[capacity];
+    this.tiles = new Tile[capacity];
+    this.letters = new char[capacity];
+    this.existing = new boolean[capacity];
+  }
+
+  void push(int x, int y, Tile tile, char letter, boolean existing) {
+    this.xs[this.size] = x;
+    this.ys[this.size] = y;
+    this.tiles[this.size] = tile;
+    this.letters[this.size] = letter;
+    this.existing[this.size] = existing;
+    this.size++;
+  }
+
+  void pop() {
+    this.tiles[--this.size] = null;
+  }
+
+}
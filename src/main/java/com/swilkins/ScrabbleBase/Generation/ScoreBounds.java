@@ -0,0 +1,181 @@
+package com.swilkins.ScrabbleBase.Generation;
+
+import com.swilkins.ScrabbleBase.Board.State.CompactBoard;
+
+/**
+ * Bounds from above the score any completion of a partial placement could reach, so that a search
+ * for the best candidates can leave a subtree as soon as nothing in it could beat the candidates
+ * it already holds.
+ * <p>
+ * Whatever is still to be placed has to land on the squares that remain in the line: those ahead
+ * of the current square, and while the word has not yet been turned around at the hook, those
+ * behind the hook, as far as the nearest hook there. Every square the word goes on to cover, empty
+ * or not, takes one of the letters the trie still has below the current node, so the deepest word
+ * there limits how far the word can reach ahead of the hook and behind it together. For each way of
+ * dividing the tiles still to be placed between the two, the most valuable tiles left on the rack
+ * are paired with the largest letter multipliers of the empty squares they would cover, and together
+ * with the product of those squares' word multipliers, the tiles already on the board the word would
+ * cover and the best cross word each of those squares could form, this overestimates what any
+ * completion placing that many tiles gains. The bingo is only counted if enough tiles can still be
+ * placed to earn it.
+ */
+final class ScoreBounds {
+
+  private final int bingo;
+  // Each indexed by orientation (0 for words along a row, 1 for words along a column), then by line,
+  // then by position along the line; the multipliers are those of empty squares only
+  private final int[][][] letters;
+  private final int[][][] words;
+  private final int[][][] existing;
+  private final int[][][] crosses;
+  // The largest letter multiplier of any empty square
+  private final int maxLetter;
+  // Scratch space for getBound(), indexed by the direction searched (0 ahead, 1 behind the hook) and
+  // then by the number of tiles placed in that direction: how many squares the word covers up to and
+  // including the last of them, the tiles already on the board it covers up to the next empty square,
+  // and the product of the word multipliers, the total of the cross words and the number of each
+  // letter multiplier of the empty squares it covers
+  private final int[][] covered;
+  private final int[][] existingSums;
+  private final long[][] wordProducts;
+  private final int[][] crossSums;
+  private final int[][][] letterCounts;
+  private final int[] reached = new int[2];
+
+  /**
+   * @param maxValue   the value of the most valuable tile that could still be placed
+   * @param crossBonus the bonus earned by every cross word
+   * @param bingo      the bonus earned by a placement that uses the whole rack
+   */
+  ScoreBounds(CompactBoard board, CrossChecks crossChecks, int maxValue, int crossBonus, int bingo) {
+    this.bingo = bingo;
+    int d = board.getDimensions();
+    this.letters = new int[2][d][d];
+    this.words = new int[2][d][d];
+    this.existing = new int[2][d][d];
+    this.crosses = new int[2][d][d];
+
+    for (int orientation = 0; orientation < 2; orientation++) {
+      Direction dir = orientation == 0 ? Direction.RIGHT : Direction.DOWN;
+      for (int line = 0; line < d; line++) {
+        for (int t = 0; t < d; t++) {
+          int x = orientation == 0 ? t : line;
+          int y = orientation == 0 ? line : t;
+          int square = y * d + x;
+          if (!board.isEmpty(square)) {
+            // An occupied square is recognized by its letter multiplier of 0
+            this.words[orientation][line][t] = 1;
+            this.existing[orientation][line][t] = board.getValue(square);
+          } else {
+            this.letters[orientation][line][t] = board.getLetterMultiplier(square);
+            this.words[orientation][line][t] = board.getWordMultiplier(square);
+            if (crossChecks.hasCross(x, y, dir) && crossChecks.allowsAny(x, y, dir)) {
+              this.crosses[orientation][line][t] = crossChecks.getCrossScore(x, y, dir, maxValue) + crossBonus;
+            }
+          }
+        }
+      }
+    }
+
+    int maxLetter = 1;
+    for (int[] line : this.letters[0]) {
+      for (int letter : line) {
+        maxLetter = Math.max(maxLetter, letter);
+      }
+    }
+    this.maxLetter = maxLetter;
+    this.covered = new int[2][d + 1];
+    this.existingSums = new int[2][d + 1];
+    this.wordProducts = new long[2][d + 1];
+    this.crossSums = new int[2][d + 1];
+    this.letterCounts = new int[2][d + 1][maxLetter + 1];
+    this.wordProducts[0][0] = this.wordProducts[1][0] = 1;
+  }
+
+  /**
+   * @param dir        the direction the search is currently heading in
+   * @param hX         the column of the hook
+   * @param hY         the row of the hook
+   * @param limit      the position along the line of the nearest square behind the hook that the
+   *                   word cannot cover, or -1 if it can reach the edge of the board
+   * @param x          the column of the next square to be visited
+   * @param y          the row of the next square to be visited
+   * @param sum        the letter sum of the primary word so far
+   * @param multiplier the word multiplier of the primary word so far
+   * @param cross      the total of the cross words formed so far, bonuses included
+   * @param values     the values of the tiles left on the rack, most valuable first
+   * @param tiles      the number of tiles left on the rack
+   * @param depth      the most letters any word below the current node still has to spell
+   * @param bingoTiles the number of tiles that would still have to be placed to earn the bingo
+   * @return a score no completion of the placement can exceed
+   */
+  long getBound(Direction dir, int hX, int hY, int limit, int x, int y, int sum, int multiplier, int cross,
+                int[] values, int tiles, int depth, int bingoTiles) {
+    int orientation = dir.normalize() == Direction.RIGHT ? 0 : 1;
+    int line = orientation == 0 ? y : x;
+    int[] letters = this.letters[orientation][line];
+    int[] words = this.words[orientation][line];
+    int[] existing = this.existing[orientation][line];
+    int[] crosses = this.crosses[orientation][line];
+
+    boolean forward = dir == Direction.RIGHT || dir == Direction.DOWN;
+    int from = orientation == 0 ? x : y;
+    int step = forward ? 1 : -1;
+    // Until the word is turned around at the hook, it can still grow behind the hook as well
+    int turn = forward ? (orientation == 0 ? hX : hY) - 1 : -1;
+    int[] reached = this.reached;
+    reached[1] = this.existingSums[1][0] = 0;
+    for (int pass = 0; pass < (turn < 0 ? 1 : 2); pass++) {
+      if (pass == 1) {
+        from = turn;
+        step = -1;
+      }
+      int[] covered = this.covered[pass], existingSums = this.existingSums[pass], crossSums = this.crossSums[pass];
+      long[] wordProducts = this.wordProducts[pass];
+      int[][] letterCounts = this.letterCounts[pass];
+      int empty = 0, squares = 0, existingSum = 0;
+      for (int t = from; t > limit && t < letters.length && squares < depth; t += step) {
+        squares++;
+        if (letters[t] == 0) {
+          existingSum += existing[t];
+          continue;
+        }
+        if (empty == tiles) {
+          break;
+        }
+        existingSums[empty++] = existingSum;
+        covered[empty] = squares;
+        wordProducts[empty] = wordProducts[empty - 1] * words[t];
+        crossSums[empty] = crossSums[empty - 1] + crosses[t];
+        System.arraycopy(letterCounts[empty - 1], 0, letterCounts[empty], 0, this.maxLetter + 1);
+        letterCounts[empty][letters[t]]++;
+      }
+      existingSums[empty] = existingSum;
+      reached[pass] = empty;
+    }
+
+    // Every term of the bound grows with the tiles placed, so for each number of tiles placed ahead
+    // of the hook, only the most that can still be placed behind it, with a letter to spare for every
+    // square covered on the way, needs considering
+    long bound = 0;
+    for (int ahead = 0, behind = Math.min(reached[1], tiles); ahead <= reached[0]; ahead++) {
+      behind = Math.min(behind, tiles - ahead);
+      while (behind > 0 && this.covered[1][behind] > depth - this.covered[0][ahead]) {
+        behind--;
+      }
+      // Pairing the most valuable tiles with the largest multipliers gives the largest possible sum
+      int placed = 0, count = ahead + behind;
+      for (int letter = this.maxLetter, i = 0; letter > 0 && i < count; letter--) {
+        for (int n = this.letterCounts[0][ahead][letter] + this.letterCounts[1][behind][letter]; n > 0 && i < count; n--) {
+          placed += values[i++] * letter;
+        }
+      }
+      long primary = (sum + placed + this.existingSums[0][ahead] + this.existingSums[1][behind]) * (long) multiplier *
+              this.wordProducts[0][ahead] * this.wordProducts[1][behind];
+      bound = Math.max(bound, primary + cross + this.crossSums[0][ahead] + this.crossSums[1][behind] +
+              (count >= bingoTiles ? this.bingo : 0));
+    }
+    return bound;
+  }
+
+}
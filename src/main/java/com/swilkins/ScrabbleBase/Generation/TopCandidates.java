@@ -0,0 +1,61 @@
+package com.swilkins.ScrabbleBase.Generation;
+
+import java.util.*;
+
+/**
+ * Keeps the best <code>k</code> candidates offered to it under some ordering, in a heap whose head
+ * is the worst of those kept. A candidate that does not beat the head once the heap is full is
+ * dropped straight away, so only candidates that make it into the heap cost more than a
+ * comparison. Every play is offered once, so no candidate needs comparing for equality with those
+ * already kept. Since the ordering ranks higher scores first, a search can
+ * ask <code>admits()</code> whether a score could make it in at all before it builds the candidate.
+ */
+final class TopCandidates {
+
+  private final int k;
+  private final Comparator<Candidate> ordering;
+  private final PriorityQueue<Candidate> heap;
+
+  /**
+   * @param k        the number of candidates to keep
+   * @param ordering sorts better candidates first, and in particular higher scores before lower
+   *                 ones, as <code>Generator.getDefaultOrdering()</code> does
+   */
+  TopCandidates(int k, Comparator<Candidate> ordering) {
+    this.k = k;
+    this.ordering = ordering;
+    this.heap = new PriorityQueue<>(Math.min(k, 1 << 10), ordering.reversed());
+  }
+
+  /**
+   * @return {@code false} if a candidate with the given score would certainly be dropped
+   */
+  boolean admits(int score) {
+    return this.heap.size() < this.k || score >= this.heap.peek().getScore();
+  }
+
+  void add(Candidate candidate) {
+    boolean full = this.heap.size() == this.k;
+    if (full && this.ordering.compare(candidate, this.heap.peek()) >= 0) {
+      return;
+    }
+    if (full) {
+      this.heap.poll();
+    }
+    this.heap.add(candidate);
+  }
+
+  void addAll(TopCandidates other) {
+    other.heap.forEach(this::add);
+  }
+
+  /**
+   * @return the kept candidates, best first
+   */
+  List<Candidate> toList() {
+    List<Candidate> candidates = new ArrayList<>(this.heap);
+    candidates.sort(this.ordering);
+    return candidates;
+  }
+
+}
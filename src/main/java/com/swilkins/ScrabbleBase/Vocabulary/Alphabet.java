@@ -0,0 +1,159 @@
+package com.swilkins.ScrabbleBase.Vocabulary;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * An immutable, dense numbering of the letters of a vocabulary, followed by any auxiliary symbols
+ * that searches need to tell apart from them (such as the delimiter of a
+ * <code>PermutationTrie</code> or the blank tile). Letters are numbered in ascending order from 0,
+ * and symbols follow in the order they were given, so per-letter data can be kept in arrays and
+ * sets of letters in a single <code>long</code>.
+ * <p>
+ * The first 63 indices each have a bit of their own in a mask; any beyond that share the last
+ * bit. A mask is therefore always a superset of the letters it was built from, which is what
+ * pruning needs, but only identifies them exactly when <code>hasExactMasks()</code>.
+ */
+public final class Alphabet {
+
+  public static final int NONE = -1;
+  // The first index whose bit is shared with every index after it
+  private static final int OVERFLOW = Long.SIZE - 1;
+
+  // Every letter and symbol, by index
+  private final char[] symbols;
+  private final int letterCount;
+  // Maps each character up to the largest one present onto its index plus one, or 0 if absent
+  private final int[] indices;
+  private final long lettersMask;
+
+  /**
+   * @param letters the letters of the vocabulary, in any order and possibly repeated
+   * @param symbols auxiliary symbols to be numbered after the letters; any that are also letters are ignored
+   */
+  public Alphabet(Collection<Character> letters, char... symbols) {
+    char[] sorted = new char[letters.size()];
+    int count = 0;
+    for (char letter : letters) {
+      sorted[count++] = letter;
+    }
+    Arrays.sort(sorted);
+    int distinct = 0;
+    for (int i = 0; i < count; i++) {
+      if (i == 0 || sorted[i] != sorted[i - 1]) {
+        sorted[distinct++] = sorted[i];
+      }
+    }
+    this.letterCount = distinct;
+
+    char[] all = Arrays.copyOf(sorted, distinct + symbols.length);
+    int size = distinct;
+    for (char symbol : symbols) {
+      if (Arrays.binarySearch(sorted, 0, distinct, symbol) < 0 && indexIn(all, size, symbol) < 0) {
+        all[size++] = symbol;
+      }
+    }
+    this.symbols = Arrays.copyOf(all, size);
+
+    char largest = 0;
+    for (char symbol : this.symbols) {
+      largest = (char) Math.max(largest, symbol);
+    }
+    this.indices = new int[size == 0 ? 0 : largest + 1];
+    for (int i = 0; i < size; i++) {
+      this.indices[this.symbols[i]] = i + 1;
+    }
+    long lettersMask = 0;
+    for (int i = 0; i < distinct; i++) {
+      lettersMask |= getMask(i);
+    }
+    this.lettersMask = lettersMask;
+  }
+
+  private static int indexIn(char[] symbols, int size, char symbol) {
+    for (int i = 0; i < size; i++) {
+      if (symbols[i] == symbol) {
+        return i;
+      }
+    }
+    return NONE;
+  }
+
+  /**
+   * @return an alphabet with the same letters and symbols at the same indices, followed by the given symbols
+   */
+  public Alphabet withSymbols(char... symbols) {
+    char[] existing = Arrays.copyOfRange(this.symbols, this.letterCount, this.symbols.length);
+    char[] combined = Arrays.copyOf(existing, existing.length + symbols.length);
+    System.arraycopy(symbols, 0, combined, existing.length, symbols.length);
+    Character[] letters = new Character[this.letterCount];
+    for (int i = 0; i < this.letterCount; i++) {
+      letters[i] = this.symbols[i];
+    }
+    return new Alphabet(Arrays.asList(letters), combined);
+  }
+
+  /**
+   * @return the number of letters and symbols
+   */
+  public int size() {
+    return this.symbols.length;
+  }
+
+  /**
+   * @return the number of letters, which occupy the indices <code>[0, getLetterCount())</code>
+   */
+  public int getLetterCount() {
+    return this.letterCount;
+  }
+
+  public char getLetter(int index) {
+    return this.symbols[index];
+  }
+
+  /**
+   * @return the index of the given letter or symbol, or <code>NONE</code> if it is not part of this alphabet
+   */
+  public int indexOf(char letter) {
+    return letter < this.indices.length ? this.indices[letter] - 1 : NONE;
+  }
+
+  public boolean contains(char letter) {
+    return this.indexOf(letter) != NONE;
+  }
+
+  /**
+   * @return whether the given character is one of the letters, rather than a symbol or absent
+   */
+  public boolean isLetter(char letter) {
+    int index = this.indexOf(letter);
+    return index != NONE && index < this.letterCount;
+  }
+
+  /**
+   * @return whether every letter and symbol has a bit of its own in a mask
+   */
+  public boolean hasExactMasks() {
+    return this.symbols.length <= Long.SIZE;
+  }
+
+  /**
+   * @return the mask standing for the given letter or symbol, or 0 if it is not part of this alphabet
+   */
+  public long getMask(char letter) {
+    int index = this.indexOf(letter);
+    return index == NONE ? 0 : getMask(index);
+  }
+
+  public static long getMask(int index) {
+    return 1L << Math.min(index, OVERFLOW);
+  }
+
+  /**
+   * @return the mask standing for every letter, excluding symbols
+   */
+  public long getLettersMask() {
+    return this.lettersMask;
+  }
+
+}
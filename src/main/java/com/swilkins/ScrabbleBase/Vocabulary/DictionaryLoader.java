@@ -0,0 +1,156 @@
+package com.swilkins.ScrabbleBase.Vocabulary;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PushbackInputStream;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Streams newline-delimited word lists into a <code>Trie</code> from any source that can produce
+ * an <code>InputStream</code>, including resources nested inside a jar. Gzip-compressed lists are
+ * detected by their magic number and decompressed on the fly. Lines are split directly on the raw
+ * bytes in a single reusable buffer, and a <code>String</code> is only created for lines that may
+ * actually be added: when the trie uses <code>Trie.LOWERCASE</code> and no transformer is supplied,
+ * invalid lines are rejected before they are ever decoded.
+ */
+public final class DictionaryLoader {
+
+  private static final int BUFFER_SIZE = 1 << 16;
+  private static final int GZIP_MAGIC_LOW = 0x1f;
+  private static final int GZIP_MAGIC_HIGH = 0x8b;
+
+  private DictionaryLoader() {
+  }
+
+  public static LoadStatistics load(Trie trie, URL source, InputTransformer transformer) throws IOException {
+    return load(trie, source, transformer, Trie.DEFAULT_LEXICON);
+  }
+
+  public static LoadStatistics load(Trie trie, URL source, InputTransformer transformer, int lexicon) throws IOException {
+    try (InputStream input = source.openStream()) {
+      return load(trie, input, transformer, lexicon);
+    }
+  }
+
+  public static LoadStatistics load(Trie trie, Path source, InputTransformer transformer) throws IOException {
+    return load(trie, source, transformer, Trie.DEFAULT_LEXICON);
+  }
+
+  public static LoadStatistics load(Trie trie, Path source, InputTransformer transformer, int lexicon) throws IOException {
+    try (InputStream input = Files.newInputStream(source)) {
+      return load(trie, input, transformer, lexicon);
+    }
+  }
+
+  public static LoadStatistics load(Trie trie, InputStream source, InputTransformer transformer) throws IOException {
+    return load(trie, source, transformer, Trie.DEFAULT_LEXICON);
+  }
+
+  /**
+   * Reads the given stream to its end, adding one word per line. Trailing carriage returns are
+   * stripped and empty lines are ignored. The stream is not closed.
+   *
+   * @param trie        the trie to be populated
+   * @param source      a stream of UTF-8 (or plain ASCII) text, optionally gzip-compressed
+   * @param transformer applied to each decoded line before it is added, or {@code null}
+   * @param lexicon     the index of the lexicon the words should be added to; words already in that
+   *                    lexicon count as duplicates
+   * @return the counts and throughput of this pass
+   * @throws IOException if the source cannot be read
+   */
+  public static LoadStatistics load(Trie trie, InputStream source, InputTransformer transformer, int lexicon) throws IOException {
+    long start = System.nanoTime();
+    InputStream input = decompressIfNeeded(source);
+    LoadPass pass = new LoadPass(trie, transformer, lexicon);
+
+    byte[] buffer = new byte[BUFFER_SIZE];
+    int filled = 0;
+    int read;
+    while ((read = input.read(buffer, filled, buffer.length - filled)) != -1) {
+      pass.bytes += read;
+      int end = filled + read;
+      int lineStart = 0;
+      for (int i = filled; i < end; i++) {
+        if (buffer[i] == '\n') {
+          pass.accept(buffer, lineStart, i);
+          lineStart = i + 1;
+        }
+      }
+      filled = end - lineStart;
+      if (lineStart > 0) {
+        System.arraycopy(buffer, lineStart, buffer, 0, filled);
+      } else if (filled == buffer.length) {
+        buffer = Arrays.copyOf(buffer, buffer.length * 2);
+      }
+    }
+    pass.accept(buffer, 0, filled);
+
+    return new LoadStatistics(pass.words, pass.added, pass.duplicates, pass.bytes, System.nanoTime() - start);
+  }
+
+  private static InputStream decompressIfNeeded(InputStream source) throws IOException {
+    PushbackInputStream input = new PushbackInputStream(source, 2);
+    byte[] magic = input.readNBytes(2);
+    input.unread(magic);
+    if (magic.length == 2 && (magic[0] & 0xff) == GZIP_MAGIC_LOW && (magic[1] & 0xff) == GZIP_MAGIC_HIGH) {
+      return new GZIPInputStream(input, BUFFER_SIZE);
+    }
+    return input;
+  }
+
+  private static final class LoadPass {
+
+    private final Trie trie;
+    private final InputTransformer transformer;
+    private final int lexicon;
+    // Whether lines can be validated as raw bytes, before paying for a String
+    private final boolean lowercase;
+    private long words = 0;
+    private long added = 0;
+    private long duplicates = 0;
+    private long bytes = 0;
+
+    private LoadPass(Trie trie, InputTransformer transformer, int lexicon) {
+      this.trie = trie;
+      this.transformer = transformer;
+      this.lexicon = lexicon;
+      this.lowercase = transformer == null && trie.validator == Trie.LOWERCASE;
+    }
+
+    private void accept(byte[] buffer, int start, int end) {
+      if (end > start && buffer[end - 1] == '\r') {
+        end--;
+      }
+      if (end == start) {
+        return;
+      }
+      this.words++;
+
+      boolean ascii = true;
+      for (int i = start; i < end; i++) {
+        byte b = buffer[i];
+        if (this.lowercase && (b < 'a' || b > 'z')) {
+          return;
+        }
+        ascii &= b >= 0;
+      }
+
+      String word = new String(buffer, start, end - start, ascii ? StandardCharsets.ISO_8859_1 : StandardCharsets.UTF_8);
+      if (this.transformer != null) {
+        word = this.transformer.transform(word);
+      }
+      if (this.trie.add(word, this.lexicon)) {
+        this.added++;
+      } else if (this.trie.contains(word, this.lexicon)) {
+        this.duplicates++;
+      }
+    }
+
+  }
+
+}
@@ -0,0 +1,76 @@
+package com.swilkins.ScrabbleBase.Vocabulary;
+
+/**
+ * An immutable view of a <code>PermutationTrie</code> at one point in time: its packed snapshot
+ * together with the metadata a search needs. Nothing here refers back to the trie it was captured
+ * from, so a version remains valid, and safe to read from any number of threads, however that
+ * trie changes afterwards. A version is reclaimed like any other object once the last search
+ * holding it completes.
+ *
+ * @see VersionedDictionary
+ */
+public final class DictionaryVersion {
+
+  private final long version;
+  private final TrieSnapshot snapshot;
+  private final char delimiter;
+  private final int size;
+
+  private DictionaryVersion(long version, TrieSnapshot snapshot, char delimiter, int size) {
+    this.version = version;
+    this.snapshot = snapshot;
+    this.delimiter = delimiter;
+    this.size = size;
+  }
+
+  /**
+   * Captures the current contents of the given trie. The trie must not be modified while it is
+   * being captured, but may be modified freely afterwards.
+   *
+   * @param trie    the trie to be captured
+   * @param version a number identifying this version to its readers
+   * @return the captured version
+   */
+  public static DictionaryVersion capture(PermutationTrie trie, long version) {
+    return new DictionaryVersion(version, trie.getSnapshot(), trie.getDelimiter(), trie.size());
+  }
+
+  /**
+   * @return the number identifying this version, which increases with every version published by a
+   * <code>VersionedDictionary</code>
+   */
+  public long getVersion() {
+    return this.version;
+  }
+
+  public TrieSnapshot getSnapshot() {
+    return this.snapshot;
+  }
+
+  public char getDelimiter() {
+    return this.delimiter;
+  }
+
+  /**
+   * @return the letters appearing in at least one word, followed by the delimiter
+   */
+  public Alphabet getAlphabet() {
+    return this.snapshot.getAlphabet();
+  }
+
+  /**
+   * @return the number of words in this version
+   */
+  public int size() {
+    return this.size;
+  }
+
+  public boolean isEmpty() {
+    return this.size == 0;
+  }
+
+  public boolean contains(String word) {
+    return this.snapshot.contains(word);
+  }
+
+}
@@ -0,0 +1,81 @@
+package com.swilkins.ScrabbleBase.Vocabulary;
+
+import java.util.Arrays;
+
+/**
+ * Reports every word that can be spelled from a multiset of letters plus a number of blanks,
+ * each of which stands in for any single letter, in ascending lexicographic order. An edge is
+ * only followed while a matching letter or a spare blank remains, so the walk never descends
+ * further than the available letters allow. A real letter is always preferred over a blank, and
+ * the choice is undone as the walk backs out of the edge.
+ */
+final class FormableWalk extends TrieWalk {
+
+  private static final int CHARACTERISTICS = ORDERED | DISTINCT | SORTED | NONNULL | IMMUTABLE;
+
+  private final int excluded;
+  private final String letterSource;
+  private final int initialBlanks;
+  // The distinct available letters, in ascending order, and how many of each remain
+  private final char[] available;
+  private final int[] counts;
+  private int blanks;
+  // Whether the letter at each position of the current path was spelled with a blank
+  private boolean[] blanked;
+
+  FormableWalk(TrieSnapshot snapshot, int excluded, String letters, int blanks) {
+    super(snapshot, snapshot.getRoot(), "", Long.MAX_VALUE, false, CHARACTERISTICS);
+    this.excluded = excluded;
+    this.letterSource = letters;
+    this.initialBlanks = blanks;
+    char[] sorted = letters.toCharArray();
+    Arrays.sort(sorted);
+    char[] available = new char[sorted.length];
+    int[] counts = new int[sorted.length];
+    int distinct = 0;
+    for (int i = 0; i < sorted.length; i++) {
+      if (i == 0 || sorted[i] != sorted[i - 1]) {
+        available[distinct++] = sorted[i];
+      }
+      counts[distinct - 1]++;
+    }
+    this.available = Arrays.copyOf(available, distinct);
+    this.counts = Arrays.copyOf(counts, distinct);
+    this.blanks = blanks;
+    this.blanked = new boolean[sorted.length + blanks];
+  }
+
+  @Override
+  protected boolean enter(char letter, int position) {
+    if (letter == this.excluded) {
+      return false;
+    }
+    int index = Arrays.binarySearch(this.available, letter);
+    if (index >= 0 && this.counts[index] > 0) {
+      this.counts[index]--;
+      this.blanked[position] = false;
+      return true;
+    }
+    if (this.blanks > 0) {
+      this.blanks--;
+      this.blanked[position] = true;
+      return true;
+    }
+    return false;
+  }
+
+  @Override
+  protected void exit(char letter, int position) {
+    if (this.blanked[position]) {
+      this.blanks++;
+    } else {
+      this.counts[Arrays.binarySearch(this.available, letter)]++;
+    }
+  }
+
+  @Override
+  protected TrieWalk copy() {
+    return new FormableWalk(this.snapshot, this.excluded, this.letterSource, this.initialBlanks);
+  }
+
+}
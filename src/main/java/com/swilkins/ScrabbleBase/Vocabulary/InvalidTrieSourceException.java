@@ -1,10 +1,15 @@
 package com.swilkins.ScrabbleBase.Vocabulary;
 
 import java.net.URL;
+import java.nio.file.Path;
 
 public class InvalidTrieSourceException extends RuntimeException {
 
   public InvalidTrieSourceException(String message, URL dictionaryPath) {
     super(String.format("%s \"%s\"", message, dictionaryPath));
   }
+
+  public InvalidTrieSourceException(String message, Path path) {
+    super(String.format("%s \"%s\"", message, path));
+  }
 }
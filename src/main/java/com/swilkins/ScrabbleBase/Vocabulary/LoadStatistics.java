@@ -0,0 +1,77 @@
+package com.swilkins.ScrabbleBase.Vocabulary;
+
+/**
+ * Summarizes a single pass of a <code>DictionaryLoader</code> over a word list, so that the
+ * cold-start cost of building a trie can be tracked over time.
+ */
+public class LoadStatistics {
+
+  private final long words;
+  private final long added;
+  private final long duplicates;
+  private final long bytes;
+  private final long elapsedNanos;
+
+  public LoadStatistics(long words, long added, long duplicates, long bytes, long elapsedNanos) {
+    this.words = words;
+    this.added = added;
+    this.duplicates = duplicates;
+    this.bytes = bytes;
+    this.elapsedNanos = elapsedNanos;
+  }
+
+  /**
+   * @return the number of non-empty lines read
+   */
+  public long getWords() {
+    return words;
+  }
+
+  public long getAdded() {
+    return added;
+  }
+
+  /**
+   * @return the number of words that were already present, either earlier in the source or before loading
+   */
+  public long getDuplicates() {
+    return duplicates;
+  }
+
+  /**
+   * @return the number of words refused by the trie's validator
+   */
+  public long getRejected() {
+    return words - added - duplicates;
+  }
+
+  /**
+   * @return the number of decoded bytes read, which for compressed sources is the uncompressed length
+   */
+  public long getBytes() {
+    return bytes;
+  }
+
+  public long getElapsedNanos() {
+    return elapsedNanos;
+  }
+
+  public double getWordsPerSecond() {
+    return perSecond(words);
+  }
+
+  public double getBytesPerSecond() {
+    return perSecond(bytes);
+  }
+
+  private double perSecond(long count) {
+    return elapsedNanos > 0 ? count * 1e9 / elapsedNanos : 0;
+  }
+
+  @Override
+  public String toString() {
+    return String.format("%d words (%d added, %d duplicate, %d rejected), %d bytes in %.1f ms: %.0f words/s, %.0f bytes/s",
+            words, added, duplicates, getRejected(), bytes, elapsedNanos / 1e6, getWordsPerSecond(), getBytesPerSecond());
+  }
+
+}
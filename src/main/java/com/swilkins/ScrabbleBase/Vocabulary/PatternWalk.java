@@ -0,0 +1,109 @@
+package com.swilkins.ScrabbleBase.Vocabulary;
+
+import java.util.Arrays;
+
+/**
+ * Reports every word matching a <code>WordPattern</code> that has been split in two around one of
+ * its elements, pruning every edge after which the pattern can no longer match.
+ * <p>
+ * With nothing before the split, this is a plain walk from the root in lexicographic order, and
+ * a pattern that begins with literal letters only ever visits the subtree they spell. Otherwise
+ * the walk relies on the rotations a <code>PermutationTrie</code> stores for every word: a word
+ * <code>u + v</code> is reachable as <code>v + delimiter + reverse(u)</code>, so the part after
+ * the split is matched forwards from the root, and, once the delimiter is crossed, the part
+ * before it is matched against the reversed prefix. Anchoring the split on a literal run means
+ * queries like <code>*ing</code> or <code>*ous*</code> start inside the few subtrees that spell
+ * the anchor rather than scanning the whole trie. Since a word may match at several splits, it is
+ * only reported from the shortest prefix at which it matches.
+ */
+final class PatternWalk extends TrieWalk {
+
+  private static final int CHARACTERISTICS = ORDERED | DISTINCT | NONNULL | IMMUTABLE;
+
+  private final int delimiter;
+  private final WordPattern before;
+  private final WordPattern reversedBefore;
+  private final WordPattern after;
+  // The live pattern states after each number of letters on the current path
+  private long[] states = new long[16];
+  // The position of the delimiter on the current path, or -1 if it has not been crossed
+  private int delimiterPosition = -1;
+
+  /**
+   * @param delimiter the letter separating a rotation's suffix from its reversed prefix, or -1
+   * @param before    the part of the pattern that must match the letters preceding the split
+   * @param after     the part of the pattern that must match the letters following the split
+   */
+  PatternWalk(TrieSnapshot snapshot, int delimiter, WordPattern before, WordPattern after) {
+    super(snapshot, snapshot.getRoot(), "", Long.MAX_VALUE, false,
+            before.length() == 0 ? CHARACTERISTICS | SORTED : CHARACTERISTICS);
+    this.delimiter = delimiter;
+    this.before = before;
+    this.reversedBefore = before.reverse();
+    this.after = after;
+    this.states[0] = after.start();
+  }
+
+  @Override
+  protected boolean enter(char letter, int position) {
+    long current = this.states[position];
+    long next;
+    if (this.delimiterPosition >= 0) {
+      next = this.reversedBefore.step(current, letter);
+    } else if (letter == this.delimiter) {
+      // Rotations with a non-empty prefix can only match if something precedes the split
+      if (this.before.length() == 0 || !this.after.accepts(current)) {
+        return false;
+      }
+      this.delimiterPosition = position;
+      next = this.reversedBefore.start();
+    } else {
+      next = this.after.step(current, letter);
+    }
+    if (next == 0) {
+      return false;
+    }
+    if (position + 1 == this.states.length) {
+      this.states = Arrays.copyOf(this.states, this.states.length * 2);
+    }
+    this.states[position + 1] = next;
+    return true;
+  }
+
+  @Override
+  protected void exit(char letter, int position) {
+    if (position == this.delimiterPosition) {
+      this.delimiterPosition = -1;
+    }
+  }
+
+  @Override
+  protected String emit(int length) {
+    if (this.delimiterPosition < 0) {
+      return this.after.accepts(this.states[length]) && this.before.matchesEmpty() ? new String(this.letters, 0, length) : null;
+    }
+    if (!this.reversedBefore.accepts(this.states[length])) {
+      return null;
+    }
+    int forward = this.delimiterPosition;
+    int split = length - forward - 1;
+    int wordLength = length - 1;
+    char[] word = new char[wordLength];
+    for (int i = 0; i < split; i++) {
+      word[i] = this.letters[length - 1 - i];
+    }
+    System.arraycopy(this.letters, 0, word, split, forward);
+    for (int shorter = 0; shorter < split; shorter++) {
+      if (this.before.matches(word, 0, shorter) && this.after.matches(word, shorter, wordLength)) {
+        return null;
+      }
+    }
+    return new String(word);
+  }
+
+  @Override
+  protected TrieWalk copy() {
+    return new PatternWalk(this.snapshot, this.delimiter, this.before, this.after);
+  }
+
+}
@@ -1,6 +1,13 @@
 package com.swilkins.ScrabbleBase.Vocabulary;
 
+import org.jetbrains.annotations.NotNull;
+
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.concurrent.ForkJoinPool;
 import java.util.function.Predicate;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 public class PermutationTrie extends Trie {
   private static final char DEFAULT_DELIMITER = '#';
@@ -30,20 +37,94 @@ public class PermutationTrie extends Trie {
     return this.delimiter;
   }
 
+  /**
+   * Opens a snapshot written by <code>writeSnapshot()</code> on a <code>PermutationTrie</code>.
+   *
+   * @param path the snapshot file
+   * @return a read-only permutation trie backed by the memory-mapped file
+   * @throws InvalidTrieSourceException if the file cannot be read or was not written by a permutation trie
+   * @see Trie#openSnapshot(Path)
+   */
+  public static PermutationTrie openSnapshot(Path path) throws InvalidTrieSourceException {
+    Trie trie = Trie.openSnapshot(path);
+    if (!(trie instanceof PermutationTrie)) {
+      throw new InvalidTrieSourceException("Expected a permutation trie snapshot in", path);
+    }
+    return (PermutationTrie) trie;
+  }
+
   interface NodeMutator {
     boolean accept(char[] letters);
   }
 
+  /**
+   * Rotations always contain the delimiter, so skipping it restricts iteration to the original words.
+   */
+  @Override
+  protected int getAuxiliaryLetter() {
+    return this.delimiter;
+  }
+
+  /**
+   * Anchors the pattern on its longest literal run, which every rotation beginning with that run
+   * can be checked against without visiting any other subtree of the root.
+   */
+  @Override
+  Stream<String> query(WordPattern pattern) {
+    int anchor = pattern.getAnchor();
+    WordPattern before = pattern.slice(0, anchor);
+    WordPattern after = pattern.slice(anchor, pattern.length());
+    return StreamSupport.stream(new PatternWalk(this.getSnapshot(), this.delimiter, before, after), false);
+  }
+
+  @Override
+  protected boolean accepts(String s) {
+    return s.indexOf(this.delimiter) < 0;
+  }
+
   @Override
-  public boolean addImpl(String s) {
-    if (s.contains(String.valueOf(this.delimiter))) {
+  public boolean addImpl(String s, int lexicons) {
+    if (!this.accepts(s)) {
       return false;
     }
-    boolean result = executeWithPermutations(this::addNodes, s);
+    boolean result = executeWithPermutations(letters -> this.addNodes(letters, lexicons), s);
     this.alphabet.remove(this.delimiter);
     return result;
   }
 
+  @Override
+  public boolean addAllParallel(@NotNull Collection<? extends String> c, ForkJoinPool pool) {
+    boolean result = super.addAllParallel(c, pool);
+    this.alphabet.remove(this.delimiter);
+    return result;
+  }
+
+  @Override
+  protected int getPathCount(char[] letters) {
+    return letters.length;
+  }
+
+  /**
+   * The path at index zero is the word itself. The path at index <code>i &gt; 0</code> is the
+   * suffix beginning at <code>i</code>, followed by the delimiter and then the preceding prefix
+   * in reverse, so that "abc" yields "abc", "bc#a" and "c#ba".
+   */
+  @Override
+  protected int fillPath(char[] letters, int index, char[] path) {
+    int count = letters.length;
+    if (index == 0) {
+      System.arraycopy(letters, 0, path, 0, count);
+      return count;
+    }
+    int suffixLength = count - index;
+    System.arraycopy(letters, index, path, 0, suffixLength);
+    path[suffixLength] = this.delimiter;
+    for (int i = 0; i < index; i++) {
+      path[suffixLength + 1 + i] = letters[index - 1 - i];
+    }
+    return count + 1;
+  }
+
   @Override
   public boolean removeImpl(String s) {
     return executeWithPermutations(this::removeNodes, s);
@@ -54,18 +135,10 @@ public class PermutationTrie extends Trie {
     boolean result = mutator.accept(letters);
 
     int count = letters.length;
-    if (count > 1) {
-      int currentIndex = count - 1;
-      char[] variation = new char[count + 1];
-      System.arraycopy(s.substring(1).toCharArray(), 0, variation, 0, currentIndex);
-      variation[currentIndex] = this.delimiter;
-      variation[count] = letters[0];
-      while (currentIndex > 0) {
-        result &= mutator.accept(variation);
-        variation[currentIndex--] = variation[0];
-        if (currentIndex >= 0) System.arraycopy(variation, 1, variation, 0, currentIndex);
-        variation[currentIndex] = this.delimiter;
-      }
+    char[] variation = new char[count + 1];
+    for (int i = 1; i < count; i++) {
+      this.fillPath(letters, i, variation);
+      result &= mutator.accept(variation);
     }
 
     return result;
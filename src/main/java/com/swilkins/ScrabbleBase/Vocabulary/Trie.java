@@ -2,28 +2,71 @@ package com.swilkins.ScrabbleBase.Vocabulary;
 
 import org.jetbrains.annotations.NotNull;
 
-import java.io.BufferedReader;
 import java.io.FileNotFoundException;
-import java.io.FileReader;
 import java.io.IOException;
 import java.net.URL;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
 import java.util.*;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
 import java.util.function.Consumer;
 import java.util.function.Predicate;
+import java.util.stream.Collectors;
 import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import static java.nio.file.StandardOpenOption.*;
 
 public class Trie implements Collection<String> {
 
   protected TrieNode root = new TrieNode(TrieNode.ROOT, null, false);
   private int size = 0;
   private int nodeSize = 0;
+  // Set once identical subtrees have been merged, at which point the node graph is a DAG
+  private boolean minimized = false;
+  // The packed image of the current contents, compiled lazily and discarded on every mutation.
+  // A trie opened from a snapshot file or frozen has no root, and this image is its only representation.
+  // Concurrent readers may ask for it at once, so it is published through a volatile field.
+  private volatile TrieSnapshot snapshot = null;
+
+  private static final int SNAPSHOT_MAGIC = 0x53425452;
+  private static final int SNAPSHOT_VERSION = 4;
+  private static final int SNAPSHOT_NO_DELIMITER = -1;
 
   private static final Predicate<String> DEFAULT_VALIDATOR = s -> true;
   protected Predicate<String> validator;
 
   protected Map<Character, Integer> alphabet = new HashMap<>();
 
-  public static final Predicate<String> LOWERCASE = s -> s.matches("^[a-z]+$");
+  public static final Predicate<String> LOWERCASE = Trie::isLowercase;
+
+  // Every word belongs to one or more lexicons (word lists), identified by an index below
+  // MAX_LEXICONS. Sets of lexicons are passed around as masks, with bit i standing for lexicon i.
+  public static final int MAX_LEXICONS = 16;
+  public static final int DEFAULT_LEXICON = 0;
+  public static final int ALL_LEXICONS = (1 << MAX_LEXICONS) - 1;
+  static final int DEFAULT_LEXICON_MASK = 1 << DEFAULT_LEXICON;
+
+  // Wildcards understood by matching()
+  public static final char ANY_LETTER = '?';
+  public static final char ANY_LETTERS = '*';
+
+  private static boolean isLowercase(String s) {
+    int length = s.length();
+    for (int i = 0; i < length; i++) {
+      char letter = s.charAt(i);
+      if (letter < 'a' || letter > 'z') {
+        return false;
+      }
+    }
+    return length > 0;
+  }
 
   public Trie(Predicate<String> validator) {
     this.validator = validator != null ? validator : DEFAULT_VALIDATOR;
@@ -33,10 +76,173 @@ public class Trie implements Collection<String> {
     this.validator = DEFAULT_VALIDATOR;
   }
 
-  public TrieNode getRoot() {
+  /**
+   * @return whether this trie was opened from a snapshot file or frozen, in which case its packed
+   * image is its only representation and it has no node graph
+   */
+  public boolean isSnapshot() {
+    return this.root == null;
+  }
+
+  /**
+   * @return the root of the node graph
+   * @throws UnsupportedOperationException if this trie was opened from a snapshot or frozen, and so
+   *                                       has no node graph (see <code>isSnapshot()</code>)
+   */
+  public TrieNode getRoot() throws UnsupportedOperationException {
+    if (this.root == null) {
+      throw new UnsupportedOperationException("A frozen trie or one opened from a snapshot has no node graph.");
+    }
     return this.root;
   }
 
+  /**
+   * Returns a packed, immutable image of the current contents of this trie, compiled on first
+   * request and reused until the next mutation. Every lookup, iteration, query and
+   * <code>Generator</code> call reads this image, so a trie built in memory holds its contents
+   * twice once the image exists: the node graph and a second copy packed into a buffer. A trie that
+   * will not change again should be frozen with <code>freeze()</code>, which keeps only the image.
+   * <p>
+   * Compiling visits every node of the graph, so its cost grows with the whole trie, not with the
+   * change that preceded it: a <code>PermutationTrie</code> of a full word list takes well over a
+   * million nodes and a substantial fraction of a second to pack. Since <code>add()</code>,
+   * <code>remove()</code> and every other mutation discard the image, changes should be made in
+   * batches, so that the next read pays for one compilation rather than one per change. A trie
+   * opened from a snapshot file holds only the mapped image and never compiles.
+   * <p>
+   * Threads that read an unchanging trie at the same time share one compilation: the first to
+   * arrive compiles the image while the rest wait for it.
+   *
+   * @return the packed image of the current contents
+   */
+  public TrieSnapshot getSnapshot() {
+    TrieSnapshot snapshot = this.snapshot;
+    if (snapshot == null) {
+      synchronized (this) {
+        snapshot = this.snapshot;
+        if (snapshot == null) {
+          snapshot = TrieSnapshot.compile(this.root, this.minimized, this.createAlphabet(), this.getAuxiliaryLetter());
+          this.snapshot = snapshot;
+        }
+      }
+    }
+    return snapshot;
+  }
+
+  /**
+   * Compiles the packed image of this trie, unless it is already compiled, and discards the node
+   * graph, so that the image is the only copy of the contents left in memory, as it is for a trie
+   * opened from a snapshot file. For a <code>PermutationTrie</code> of a full word list, that is
+   * about half of what the trie holds once it has been read. Like an opened snapshot, the trie is
+   * then read-only and has no node graph until it is cleared. As with any mutation, it must not be
+   * frozen while other threads read from it.
+   */
+  public void freeze() {
+    if (this.root != null) {
+      this.getSnapshot();
+      this.root = null;
+    }
+  }
+
+  /**
+   * @return whether the given image is the one this trie currently holds, in which case nothing has
+   * changed since it was compiled
+   */
+  boolean isCurrent(TrieSnapshot snapshot) {
+    return this.snapshot == snapshot;
+  }
+
+  /**
+   * Persists the packed image of this trie, along with its size and alphabet, to the given file.
+   * Minimizing the trie first keeps the file, and every process that maps it, considerably smaller.
+   *
+   * @param path the file to be created or overwritten
+   * @throws IOException if the file cannot be written
+   */
+  public void writeSnapshot(Path path) throws IOException {
+    TrieSnapshot snapshot = this.getSnapshot();
+    IntBuffer nodes = snapshot.getNodes();
+    int headerLength = 10 + 2 * this.alphabet.size();
+    ByteBuffer buffer = ByteBuffer.allocate((headerLength + nodes.remaining()) * Integer.BYTES);
+    IntBuffer output = buffer.asIntBuffer();
+    output.put(SNAPSHOT_MAGIC).put(SNAPSHOT_VERSION);
+    output.put(this instanceof PermutationTrie ? ((PermutationTrie) this).getDelimiter() : SNAPSHOT_NO_DELIMITER);
+    output.put(this.minimized ? 1 : 0).put(this.size).put(this.nodeSize);
+    output.put(this.alphabet.size());
+    for (Map.Entry<Character, Integer> entry : this.alphabet.entrySet()) {
+      output.put(entry.getKey()).put(entry.getValue());
+    }
+    output.put(snapshot.getRoot()).put(snapshot.getNodeCount()).put(nodes.remaining());
+    output.put(nodes);
+    try (FileChannel channel = FileChannel.open(path, CREATE, WRITE, TRUNCATE_EXISTING)) {
+      while (buffer.hasRemaining()) {
+        channel.write(buffer);
+      }
+    }
+  }
+
+  /**
+   * Opens a file written by <code>writeSnapshot()</code> by mapping it into memory. No nodes are
+   * rebuilt: every lookup reads directly from the mapped pages, which the operating system shares
+   * between all processes that open the same file. The resulting trie is read-only until cleared.
+   * The image is read through once to check that every offset in it stays within it, so that a
+   * corrupt file is rejected here instead of failing a later lookup.
+   *
+   * @param path the snapshot file
+   * @return a <code>PermutationTrie</code> if the snapshot was written by one, otherwise a <code>Trie</code>
+   * @throws InvalidTrieSourceException if the file cannot be read, is not a trie snapshot or is corrupt
+   */
+  public static Trie openSnapshot(Path path) throws InvalidTrieSourceException {
+    try (FileChannel channel = FileChannel.open(path, READ)) {
+      IntBuffer input = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()).asIntBuffer();
+      if (input.remaining() < 2 || input.get() != SNAPSHOT_MAGIC || input.get() != SNAPSHOT_VERSION) {
+        throw new InvalidTrieSourceException("Unrecognized snapshot format in", path);
+      }
+      int delimiter = input.get();
+      Trie trie = delimiter == SNAPSHOT_NO_DELIMITER ? new Trie() : new PermutationTrie((char) delimiter);
+      if (!trie.restoreSnapshot(input)) {
+        throw new InvalidTrieSourceException("Encountered corrupt snapshot in", path);
+      }
+      return trie;
+    } catch (BufferUnderflowException | IllegalArgumentException e) {
+      throw new InvalidTrieSourceException("Encountered truncated snapshot in", path);
+    } catch (IOException e) {
+      throw new InvalidTrieSourceException("Encountered error while reading from", path);
+    }
+  }
+
+  /**
+   * @return whether the image read is consistent with its header, with every offset in it pointing
+   * to one of its nodes
+   */
+  private boolean restoreSnapshot(IntBuffer input) {
+    this.minimized = input.get() == 1;
+    this.size = input.get();
+    this.nodeSize = input.get();
+    this.alphabet.clear();
+    int alphabetSize = input.get();
+    for (int i = 0; i < alphabetSize; i++) {
+      this.alphabet.put((char) input.get(), input.get());
+    }
+    int rootOffset = input.get();
+    int nodeCount = input.get();
+    int length = input.get();
+    if (length < 0 || length > input.remaining() || rootOffset < 0 || rootOffset >= length ||
+            nodeCount <= 0 || nodeCount > length) {
+      return false;
+    }
+    IntBuffer nodes = input.slice();
+    nodes.limit(length);
+    this.root = null;
+    this.snapshot = new TrieSnapshot(nodes.slice(), rootOffset, nodeCount, this.createAlphabet());
+    return this.snapshot.isWellFormed();
+  }
+
+  private Alphabet createAlphabet() {
+    int auxiliary = this.getAuxiliaryLetter();
+    return auxiliary < 0 ? new Alphabet(this.alphabet.keySet()) : new Alphabet(this.alphabet.keySet(), (char) auxiliary);
+  }
+
   public int getNodeSize() {
     return this.nodeSize;
   }
@@ -45,24 +251,85 @@ public class Trie implements Collection<String> {
     return this.alphabet.keySet();
   }
 
+  public boolean isMinimized() {
+    return this.minimized;
+  }
+
+  /**
+   * Merges every set of equivalent subtrees (same lexicons and the same labelled edges to
+   * equivalent children) into a single shared instance, turning the node tree into a minimal
+   * directed acyclic graph. Traversal through <code>getRoot()</code>, <code>getChild()</code> and
+   * <code>getTerminal()</code> is unaffected, but a node may now be reachable from several parents
+   * and through different letters, so <code>getParent()</code> and <code>getLetter()</code> are no
+   * longer meaningful and the trie becomes read-only until it is cleared.
+   *
+   * @return the number of nodes remaining after minimization
+   */
+  public int minimize() {
+    if (!this.minimized) {
+      ensureMutable();
+      Map<NodeSignature, TrieNode> registry = new HashMap<>();
+      minimizeChildren(this.root, registry);
+      this.nodeSize = registry.size();
+      this.minimized = true;
+      this.snapshot = null;
+    }
+    return this.nodeSize;
+  }
+
+  private static void minimizeChildren(TrieNode node, Map<NodeSignature, TrieNode> registry) {
+    int count = node.getChildCount();
+    for (int i = 0; i < count; i++) {
+      TrieNode child = node.getChildAt(i);
+      minimizeChildren(child, registry);
+      TrieNode canonical = registry.putIfAbsent(new NodeSignature(child), child);
+      if (canonical != null) {
+        node.setChildAt(i, canonical);
+      }
+    }
+  }
+
+  private void ensureMutable() {
+    if (this.root == null) {
+      throw new UnsupportedOperationException("Cannot modify a frozen trie or one opened from a snapshot.");
+    }
+    if (this.minimized) {
+      throw new UnsupportedOperationException("Cannot modify a minimized trie.");
+    }
+  }
+
+  /**
+   * Adds every word listed in the given file, jar entry or other resource, one per line. Duplicate
+   * lines are skipped rather than treated as failures; see <code>DictionaryLoader</code> for details
+   * and for the throughput of the load.
+   *
+   * @return whether every listed word is now contained in this trie
+   */
   public boolean loadFrom(URL dictionaryPath, InputTransformer transformer) throws InvalidTrieSourceException {
     try {
-      BufferedReader reader = new BufferedReader(new FileReader(dictionaryPath.getFile()));
-      Stream<String> input = reader.lines().distinct();
-      if (transformer != null) {
-        input = input.map(transformer::transform);
-      }
-      boolean result = input.allMatch(this::add);
-      reader.close();
-      return result;
-    } catch (FileNotFoundException | NullPointerException e) {
+      return DictionaryLoader.load(this, dictionaryPath, transformer).getRejected() == 0;
+    } catch (FileNotFoundException | NoSuchFileException | NullPointerException e) {
+      throw new InvalidTrieSourceException("Unable to locate dictionary file at", dictionaryPath);
+    } catch (IOException e) {
+      throw new InvalidTrieSourceException("Encountered error while reading from", dictionaryPath);
+    }
+  }
+
+  /**
+   * @see Trie#loadFrom(URL, InputTransformer)
+   */
+  public boolean loadFrom(Path dictionaryPath, InputTransformer transformer) throws InvalidTrieSourceException {
+    try {
+      return DictionaryLoader.load(this, dictionaryPath, transformer).getRejected() == 0;
+    } catch (FileNotFoundException | NoSuchFileException | NullPointerException e) {
       throw new InvalidTrieSourceException("Unable to locate dictionary file at", dictionaryPath);
     } catch (IOException e) {
       throw new InvalidTrieSourceException("Encountered error while reading from", dictionaryPath);
     }
   }
 
-  protected boolean addNodes(char[] letters) {
+  protected boolean addNodes(char[] letters, int lexicons) {
+    this.snapshot = null;
     boolean terminal = false;
     TrieNode node = this.root;
     TrieNode childNode;
@@ -70,11 +337,11 @@ public class Trie implements Collection<String> {
     for (int i = 0; i < count; i++) {
       terminal = i + 1 == count;
       if ((childNode = node.getChild(letters[i])) == null) {
-        node = node.addChild(letters[i], terminal);
+        node = node.addChild(letters[i], terminal ? lexicons : 0);
         this.nodeSize++;
       } else {
         if ((terminal &= !childNode.getTerminal())) {
-          childNode.setTerminal(true);
+          childNode.setLexicons(lexicons);
         }
         node = childNode;
       }
@@ -86,6 +353,7 @@ public class Trie implements Collection<String> {
   }
 
   protected boolean removeNodes(@NotNull char[] letters) {
+    this.snapshot = null;
     TrieNode node = this.root;
     for (char letter : letters) {
       node = node.getChild(letter);
@@ -115,28 +383,80 @@ public class Trie implements Collection<String> {
     return true;
   }
 
+  /**
+   * @param s a candidate word that has already passed the validator
+   * @return whether this trie is able to store the given word at all
+   */
+  protected boolean accepts(String s) {
+    return true;
+  }
+
+  /**
+   * @param letters the letters of a word
+   * @return the number of root-to-terminal paths this trie stores for the given word
+   */
+  protected int getPathCount(char[] letters) {
+    return 1;
+  }
+
+  /**
+   * Writes one of the paths this trie stores for a word into the given buffer.
+   *
+   * @param letters the letters of a word
+   * @param index   a value in the range <code>[0, getPathCount(letters))</code>
+   * @param path    a buffer at least one longer than the word
+   * @return the length of the path
+   */
+  protected int fillPath(char[] letters, int index, char[] path) {
+    System.arraycopy(letters, 0, path, 0, letters.length);
+    return letters.length;
+  }
+
+  /**
+   * @return a letter whose edges lead only to auxiliary paths rather than to words of this trie,
+   * or -1 if every path spells a word
+   */
+  protected int getAuxiliaryLetter() {
+    return -1;
+  }
+
   protected List<String> collect() {
-    List<String> collector = new ArrayList<>();
-    traverseRecursive(this.root, "", collector);
+    List<String> collector = new ArrayList<>(this.size);
+    this.forEach(collector::add);
     return collector;
   }
 
-  private void traverseRecursive(TrieNode current, String accumulated, List<String> collector) {
-    for (char letter : this.getAlphabet()) {
-      TrieNode child = current.getChild(letter);
-      if (child != null) {
-        String updated = accumulated + letter;
-        if (child.getTerminal()) {
-          collector.add(updated);
-        }
-        traverseRecursive(child, updated, collector);
+  /**
+   * Moves a word that is already present into a different, non-empty set of lexicons, along
+   * every path this trie stores for it.
+   */
+  private void relabel(String s, int lexicons) {
+    this.snapshot = null;
+    char[] letters = s.toCharArray();
+    char[] path = new char[letters.length + 1];
+    int count = this.getPathCount(letters);
+    for (int i = 0; i < count; i++) {
+      int length = this.fillPath(letters, i, path);
+      TrieNode node = this.root;
+      for (int j = 0; j < length; j++) {
+        node = node.getChild(path[j]);
       }
+      node.setLexicons(lexicons);
     }
   }
 
+  private static int getLexiconMask(int lexicon) {
+    if (lexicon < 0 || lexicon >= MAX_LEXICONS) {
+      throw new IllegalArgumentException(String.format("Lexicons are identified by an index below %d.", MAX_LEXICONS));
+    }
+    return 1 << lexicon;
+  }
+
   public void clear() {
     this.root = new TrieNode(TrieNode.ROOT, null, false);
     this.size = this.nodeSize = 0;
+    this.minimized = false;
+    this.snapshot = null;
   }
 
   @Override
@@ -149,42 +469,55 @@ public class Trie implements Collection<String> {
     return this.size == 0;
   }
 
+  /**
+   * @return whether the given word belongs to any lexicon
+   */
   @Override
   public boolean contains(Object o) {
     String string = (String) o;
-    if (string == null) {
-      return false;
+    return string != null && this.getLexicons(string) != 0;
+  }
+
+  public boolean contains(String s, int lexicon) {
+    return (this.getLexicons(s) & getLexiconMask(lexicon)) != 0;
+  }
+
+  /**
+   * @return the mask of lexicons the given word belongs to, or 0 if it is not contained in this trie
+   */
+  public int getLexicons(String s) {
+    if (this.root == null) {
+      return this.snapshot.getLexicons(s);
     }
     TrieNode node = this.root;
-    char[] letters = string.toCharArray();
-    int count = string.length();
-
-    int i;
-    TrieNode childNode;
-    for (i = 0; i < count; i++) {
-      if ((childNode = node.getChild(letters[i])) == null) {
-        break;
+    int count = s.length();
+    for (int i = 0; i < count; i++) {
+      if ((node = node.getChild(s.charAt(i))) == null) {
+        return 0;
       }
-      node = childNode;
     }
-    return i == count && node.getTerminal();
+    return node.getLexicons();
   }
 
+  /**
+   * The words of this trie are visited lazily and in ascending lexicographic order, from the
+   * snapshot of the contents at the time the iterator is created. Later mutations are not observed.
+   */
   @NotNull
   @Override
   public Iterator<String> iterator() {
-    return this.collect().iterator();
+    return Spliterators.iterator(this.spliterator());
   }
 
   @Override
   public void forEach(Consumer<? super String> action) {
-    this.collect().forEach(action);
+    this.spliterator().forEachRemaining(action);
   }
 
   @NotNull
   @Override
   public Object[] toArray() {
-    return this.collect().toArray();
+    return this.stream().toArray();
   }
 
   @NotNull
@@ -194,24 +527,76 @@ public class Trie implements Collection<String> {
     return this.collect().toArray(a);
   }
 
+  /**
+   * Equivalent to {@code add(s, DEFAULT_LEXICON)}.
+   */
   @Override
   public final boolean add(String s) {
-    if (s.isEmpty() || contains(s) || !this.validator.test(s)) {
+    return this.add(s, DEFAULT_LEXICON);
+  }
+
+  /**
+   * Adds a word to one lexicon. Lexicons share every node their words have in common, so a
+   * trie holding several heavily overlapping word lists is barely larger than one holding the
+   * largest of them alone.
+   *
+   * @param s       the word to be added
+   * @param lexicon the index of the lexicon the word should belong to
+   * @return whether the word was not already in the given lexicon and has been added to it
+   * @throws IllegalArgumentException if the lexicon index is out of range
+   */
+  public final boolean add(String s, int lexicon) {
+    ensureMutable();
+    int mask = getLexiconMask(lexicon);
+    if (s.isEmpty() || !this.validator.test(s)) {
       return false;
     }
-    if (this.addImpl(s)) {
+    int current = this.getLexicons(s);
+    if ((current & mask) != 0) {
+      return false;
+    }
+    if (current != 0) {
+      this.relabel(s, current | mask);
+      return true;
+    }
+    if (this.addImpl(s, mask)) {
       this.size++;
       return true;
     }
     return false;
   }
 
-  protected boolean addImpl(String s) {
-    return this.addNodes(s.toCharArray());
+  protected boolean addImpl(String s, int lexicons) {
+    return this.addNodes(s.toCharArray(), lexicons);
   }
 
+  /**
+   * Removes a word from one lexicon, and from the trie altogether if that was the last lexicon
+   * it belonged to.
+   *
+   * @return whether the word was in the given lexicon
+   * @throws IllegalArgumentException if the lexicon index is out of range
+   */
+  public final boolean remove(String s, int lexicon) {
+    ensureMutable();
+    int mask = getLexiconMask(lexicon);
+    int current = this.getLexicons(s);
+    if ((current & mask) == 0) {
+      return false;
+    }
+    if (current == mask) {
+      return this.remove(s);
+    }
+    this.relabel(s, current & ~mask);
+    return true;
+  }
+
+  /**
+   * Removes a word from every lexicon it belongs to.
+   */
   @Override
   public final boolean remove(Object o) {
+    ensureMutable();
     if (!this.contains(o)) {
       return false;
     }
@@ -249,6 +634,121 @@ public class Trie implements Collection<String> {
     return Collections.addAll(this, c);
   }
 
+  /**
+   * Equivalent to {@code addAllParallel(c, ForkJoinPool.commonPool())}.
+   */
+  public boolean addAllParallel(@NotNull Collection<? extends String> c) {
+    return this.addAllParallel(c, ForkJoinPool.commonPool());
+  }
+
+  /**
+   * Bulk-loads the given words using every worker of the given pool. The paths stored for the
+   * accepted words are grouped by their first two letters. Since paths with different prefixes
+   * never share nodes below the second level, the first two levels are created up front and
+   * each group is then inserted into its own subtree by a separate task, without any locking.
+   * Unlike <code>addAll()</code>, rejected words do not stop the remaining words from being added.
+   *
+   * @param c    the words to be added
+   * @param pool the pool on which validation, partitioning and insertion run
+   * @return whether every given word was added
+   */
+  public boolean addAllParallel(@NotNull Collection<? extends String> c, ForkJoinPool pool) {
+    ensureMutable();
+    List<String> candidates = pool.submit(() -> c.parallelStream()
+            .filter(s -> !s.isEmpty() && this.validator.test(s) && this.accepts(s) && (this.getLexicons(s) & DEFAULT_LEXICON_MASK) == 0)
+            .distinct()
+            .collect(Collectors.<String>toList())
+    ).join();
+    if (candidates.isEmpty()) {
+      return c.isEmpty();
+    }
+    this.snapshot = null;
+    // Words already present in other lexicons only need to join the default one
+    List<String> accepted = new ArrayList<>(candidates.size());
+    for (String s : candidates) {
+      int current = this.getLexicons(s);
+      if (current != 0) {
+        this.relabel(s, current | DEFAULT_LEXICON_MASK);
+      } else {
+        accepted.add(s);
+      }
+    }
+
+    ConcurrentMap<Long, List<char[]>> shards = pool.submit(() -> accepted.parallelStream()
+            .flatMap(s -> {
+              char[] letters = s.toCharArray();
+              char[] buffer = new char[letters.length + 1];
+              int count = this.getPathCount(letters);
+              List<char[]> paths = new ArrayList<>(count);
+              for (int i = 0; i < count; i++) {
+                paths.add(Arrays.copyOf(buffer, this.fillPath(letters, i, buffer)));
+              }
+              return paths.stream();
+            })
+            .collect(Collectors.groupingByConcurrent(path ->
+                    path.length > 1 ? (long) path[0] << 16 | path[1] : -1L - path[0]))
+    ).join();
+
+    List<ForkJoinTask<ShardResult>> tasks = new ArrayList<>(shards.size());
+    for (Map.Entry<Long, List<char[]>> shard : shards.entrySet()) {
+      long key = shard.getKey();
+      TrieNode start = this.getOrAddChild(this.root, (char) (key < 0 ? -1L - key : key >>> 16));
+      int depth = 1;
+      if (key >= 0) {
+        start = this.getOrAddChild(start, (char) key);
+        depth = 2;
+      }
+      TrieNode shardRoot = start;
+      int shardDepth = depth;
+      tasks.add(pool.submit(() -> insertShard(shardRoot, shardDepth, shard.getValue())));
+    }
+
+    for (ForkJoinTask<ShardResult> task : tasks) {
+      ShardResult result = task.join();
+      this.nodeSize += result.nodeSize;
+      result.alphabet.forEach((letter, count) -> this.alphabet.merge(letter, count[0], Integer::sum));
+    }
+    this.size += accepted.size();
+    return candidates.size() == c.size();
+  }
+
+  private TrieNode getOrAddChild(TrieNode node, char letter) {
+    TrieNode child = node.getChild(letter);
+    if (child == null) {
+      child = node.addChild(letter, false);
+      this.nodeSize++;
+    }
+    return child;
+  }
+
+  private static ShardResult insertShard(TrieNode start, int depth, List<char[]> paths) {
+    ShardResult result = new ShardResult();
+    for (char[] path : paths) {
+      TrieNode node = start;
+      for (int i = depth; i < path.length; i++) {
+        TrieNode child = node.getChild(path[i]);
+        if (child == null) {
+          child = node.addChild(path[i], false);
+          result.nodeSize++;
+        }
+        node = child;
+      }
+      node.setTerminal(true);
+      for (char letter : path) {
+        result.alphabet.computeIfAbsent(letter, l -> new int[1])[0]++;
+      }
+    }
+    return result;
+  }
+
+  private static final class ShardResult {
+
+    private int nodeSize = 0;
+    // Reference counts accumulated by a single shard, merged into the trie's alphabet once all shards complete
+    private final Map<Character, int[]> alphabet = new HashMap<>();
+
+  }
+
   @Override
   public boolean removeAll(@NotNull Collection<?> c) {
     return c.stream().allMatch(this::remove);
@@ -272,19 +772,138 @@ public class Trie implements Collection<String> {
     return this.collect().stream().filter(s -> !c.contains(s)).allMatch(this::remove);
   }
 
+  /**
+   * @return a lazy, sorted spliterator over the words of this trie that splits at root-level subtrees
+   * @see Trie#iterator()
+   */
   @Override
   public Spliterator<String> spliterator() {
-    return this.collect().spliterator();
+    return new WordWalk(this.getSnapshot(), this.getAuxiliaryLetter(), this.size);
   }
 
   @Override
   public Stream<String> stream() {
-    return this.collect().stream();
+    return StreamSupport.stream(this.spliterator(), false);
   }
 
   @Override
   public Stream<String> parallelStream() {
-    return this.collect().parallelStream();
+    return StreamSupport.stream(this.spliterator(), true);
+  }
+
+  /*
+   * Queries. Each walks the snapshot lazily and abandons a subtree as soon as it cannot lead to a
+   * result, so bounding a query with Stream.limit() also bounds the work done to answer it.
+   */
+
+  /**
+   * @return the words beginning with the given prefix (including the prefix itself), in lexicographic order
+   */
+  public Stream<String> withPrefix(String prefix) {
+    TrieSnapshot snapshot = this.getSnapshot();
+    int node = snapshot.getRoot();
+    for (int i = 0; i < prefix.length() && node != TrieSnapshot.NONE; i++) {
+      char letter = prefix.charAt(i);
+      node = letter == this.getAuxiliaryLetter() ? TrieSnapshot.NONE : snapshot.getChild(node, letter);
+    }
+    if (node == TrieSnapshot.NONE) {
+      return Stream.empty();
+    }
+    Stream<String> below = StreamSupport.stream(new WordWalk(snapshot, node, prefix, this.getAuxiliaryLetter(), this.size, false), false);
+    return snapshot.getTerminal(node) ? Stream.concat(Stream.of(prefix), below) : below;
+  }
+
+  /**
+   * Only a <code>PermutationTrie</code> can answer this without visiting every word.
+   *
+   * @return the words ending with the given suffix (including the suffix itself)
+   */
+  public Stream<String> withSuffix(String suffix) {
+    return this.query(WordPattern.literal(suffix, true, false));
+  }
+
+  /**
+   * Only a <code>PermutationTrie</code> can answer this without visiting every word.
+   *
+   * @return the words containing the given letters contiguously, anywhere (including the letters themselves)
+   */
+  public Stream<String> containing(String infix) {
+    return this.query(WordPattern.literal(infix, true, true));
+  }
+
+  /**
+   * Matches whole words against a pattern in which <code>ANY_LETTER</code> stands for exactly one
+   * letter and <code>ANY_LETTERS</code> for any run of letters, possibly empty: <code>c?t*</code>
+   * matches "cat", "cots" and "cutlery". A pattern that begins with a literal letter only visits
+   * the subtree it spells; a <code>PermutationTrie</code> can also start from the longest literal
+   * run anywhere in the pattern.
+   *
+   * @param pattern letters and wildcards, at most 63 elements long once adjacent runs are collapsed
+   * @return the matching words
+   * @throws IllegalArgumentException if the pattern is too long
+   */
+  public Stream<String> matching(String pattern) {
+    return this.query(WordPattern.parse(pattern));
+  }
+
+  Stream<String> query(WordPattern pattern) {
+    return StreamSupport.stream(new PatternWalk(this.getSnapshot(), -1, WordPattern.EMPTY, pattern), false);
+  }
+
+  /**
+   * @param letters the available letters, repeated as many times as each may be used
+   * @param blanks  the number of additional letters that may each stand in for any letter
+   * @return the words that can be spelled from some of the available letters and blanks, in lexicographic order
+   * @throws IllegalArgumentException if <code>blanks</code> is negative
+   */
+  public Stream<String> formableFrom(String letters, int blanks) {
+    if (blanks < 0) {
+      throw new IllegalArgumentException("The number of blanks cannot be negative.");
+    }
+    return StreamSupport.stream(new FormableWalk(this.getSnapshot(), this.getAuxiliaryLetter(), letters, blanks), false);
+  }
+
+  /**
+   * Identifies a node by everything that determines the words reachable from it. Since
+   * children are canonicalized before their parent, comparing them by identity is sufficient.
+   */
+  private static final class NodeSignature {
+
+    private final TrieNode node;
+    private final int hash;
+
+    private NodeSignature(TrieNode node) {
+      this.node = node;
+      int hash = node.getLexicons();
+      for (int i = 0; i < node.getChildCount(); i++) {
+        hash = 31 * hash + node.getChildLetter(i);
+        hash = 31 * hash + System.identityHashCode(node.getChildAt(i));
+      }
+      this.hash = hash;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) return true;
+      if (o == null || getClass() != o.getClass()) return false;
+      TrieNode other = ((NodeSignature) o).node;
+      int count = node.getChildCount();
+      if (node.getLexicons() != other.getLexicons() || count != other.getChildCount()) {
+        return false;
+      }
+      for (int i = 0; i < count; i++) {
+        if (node.getChildLetter(i) != other.getChildLetter(i) || node.getChildAt(i) != other.getChildAt(i)) {
+          return false;
+        }
+      }
+      return true;
+    }
+
+    @Override
+    public int hashCode() {
+      return hash;
+    }
+
   }
 
 }
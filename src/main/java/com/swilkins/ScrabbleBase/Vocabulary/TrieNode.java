@@ -1,39 +1,135 @@
 package com.swilkins.ScrabbleBase.Vocabulary;
 
-import java.util.HashMap;
-import java.util.Map;
+import java.util.Arrays;
 
+/**
+ * A single node of a <code>Trie</code>. Children are kept in two parallel primitive arrays,
+ * sorted by letter, rather than in a <code>Map&lt;Character, TrieNode&gt;</code>: the vast majority
+ * of nodes have only a handful of children, so a binary search over a short <code>char[]</code>
+ * is both smaller on the heap and faster than boxing the letter and probing a hash table.
+ * The arrays are sized exactly to the number of children, and nodes without children share
+ * the same empty arrays.
+ * <p>
+ * A terminal node records which lexicons its word belongs to as a bitmask (see
+ * <code>Trie.add(String, int)</code>), so a non-terminal node is simply one with no lexicons.
+ */
 public class TrieNode {
 
   public static final char ROOT = '@';
+  private static final char[] NO_LETTERS = new char[0];
+  private static final TrieNode[] NO_CHILDREN = new TrieNode[0];
+
   private final char letter;
   private final TrieNode parent;
-  private boolean isTerminal;
-  private final Map<Character, TrieNode> children;
+  // Bit i is set if the word ending here belongs to lexicon i; zero if no word ends here
+  private int lexicons;
+  // Sorted in ascending order, and always the same length as children
+  private char[] letters;
+  private TrieNode[] children;
 
   public TrieNode(char letter, TrieNode parent, boolean isTerminal) {
+    this(letter, parent, isTerminal ? Trie.DEFAULT_LEXICON_MASK : 0);
+  }
+
+  public TrieNode(char letter, TrieNode parent, int lexicons) {
     this.letter = letter;
     this.parent = parent;
-    this.isTerminal = isTerminal;
-    this.children = new HashMap<>();
+    this.lexicons = lexicons;
+    this.letters = NO_LETTERS;
+    this.children = NO_CHILDREN;
   }
 
   public TrieNode addChild(char letter, boolean isTerminal) {
-    TrieNode existing = this.children.get(letter);
-    if (existing != null) {
+    return this.addChild(letter, isTerminal ? Trie.DEFAULT_LEXICON_MASK : 0);
+  }
+
+  public TrieNode addChild(char letter, int lexicons) {
+    int index = Arrays.binarySearch(this.letters, letter);
+    if (index >= 0) {
       throw new Error(String.format("Attempted to add a duplicate child node: %s", letter));
     }
-    TrieNode child = new TrieNode(letter, this, isTerminal);
-    this.children.put(letter, child);
+    index = -(index + 1);
+    int count = this.letters.length;
+
+    char[] letters = new char[count + 1];
+    TrieNode[] children = new TrieNode[count + 1];
+    System.arraycopy(this.letters, 0, letters, 0, index);
+    System.arraycopy(this.children, 0, children, 0, index);
+    System.arraycopy(this.letters, index, letters, index + 1, count - index);
+    System.arraycopy(this.children, index, children, index + 1, count - index);
+
+    TrieNode child = new TrieNode(letter, this, lexicons);
+    letters[index] = letter;
+    children[index] = child;
+    this.letters = letters;
+    this.children = children;
     return child;
   }
 
   public TrieNode removeChild(char letter) {
-    return this.children.remove(letter);
+    int index = Arrays.binarySearch(this.letters, letter);
+    if (index < 0) {
+      return null;
+    }
+    TrieNode removed = this.children[index];
+    int count = this.letters.length - 1;
+    if (count == 0) {
+      this.letters = NO_LETTERS;
+      this.children = NO_CHILDREN;
+      return removed;
+    }
+
+    char[] letters = new char[count];
+    TrieNode[] children = new TrieNode[count];
+    System.arraycopy(this.letters, 0, letters, 0, index);
+    System.arraycopy(this.children, 0, children, 0, index);
+    System.arraycopy(this.letters, index + 1, letters, index, count - index);
+    System.arraycopy(this.children, index + 1, children, index, count - index);
+    this.letters = letters;
+    this.children = children;
+    return removed;
   }
 
   public TrieNode getChild(char letter) {
-    return this.children.get(letter);
+    char[] letters = this.letters;
+    int low = 0;
+    int high = letters.length - 1;
+    while (low <= high) {
+      int middle = (low + high) >>> 1;
+      char candidate = letters[middle];
+      if (candidate < letter) {
+        low = middle + 1;
+      } else if (candidate > letter) {
+        high = middle - 1;
+      } else {
+        return this.children[middle];
+      }
+    }
+    return null;
+  }
+
+  /**
+   * @param index a value in the range <code>[0, getChildCount())</code>
+   * @return the letter of the child at the given index, in ascending letter order
+   */
+  public char getChildLetter(int index) {
+    return this.letters[index];
+  }
+
+  /**
+   * @param index a value in the range <code>[0, getChildCount())</code>
+   * @return the child at the given index, in ascending letter order
+   */
+  public TrieNode getChildAt(int index) {
+    return this.children[index];
+  }
+
+  /**
+   * Redirects the edge at the given index to an equivalent node. Only used while
+   * minimizing a <code>Trie</code>, after which the node graph is no longer a tree.
+   */
+  void setChildAt(int index, TrieNode child) {
+    this.children[index] = child;
   }
 
   public char getLetter() {
@@ -45,15 +141,34 @@ public class TrieNode {
   }
 
   public boolean getTerminal() {
-    return this.isTerminal;
+    return this.lexicons != 0;
+  }
+
+  /**
+   * @return the lexicons the word ending at this node belongs to, or 0 if this node is not terminal
+   */
+  public int getLexicons() {
+    return this.lexicons;
+  }
+
+  public void setLexicons(int lexicons) {
+    this.lexicons = lexicons;
   }
 
   public int getChildCount() {
-    return this.children.size();
+    return this.letters.length;
   }
 
+  /**
+   * Marking a node terminal places its word in the default lexicon, unless it already belongs
+   * to other lexicons.
+   */
   public void setTerminal(Boolean isTerminal) {
-    this.isTerminal = isTerminal;
+    if (!isTerminal) {
+      this.lexicons = 0;
+    } else if (this.lexicons == 0) {
+      this.lexicons = Trie.DEFAULT_LEXICON_MASK;
+    }
   }
 
 }
@@ -0,0 +1,307 @@
+package com.swilkins.ScrabbleBase.Vocabulary;
+
+import java.nio.IntBuffer;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+/**
+ * An immutable, packed image of the node graph of a <code>Trie</code>. Nodes are addressed by
+ * their integer offset into a single <code>IntBuffer</code>, which may either wrap a heap array
+ * (when compiled from a live trie) or be a view over a memory-mapped snapshot file (when opened
+ * through <code>Trie.openSnapshot()</code>), so lookups never allocate and never copy the lexicon
+ * onto the heap. A node at offset <code>o</code> with <code>c</code> children is laid out as:
+ * <p>
+ * [o]                   (c &lt;&lt; 1) | terminal
+ * [o + 1]               (maximum depth &lt;&lt; 16) | minimum depth
+ * [o + 2 .. o + 3]      reachable letters, low and high halves
+ * [o + 4]               (reachable lexicons &lt;&lt; 16) | lexicons
+ * [o + 5 .. o + c + 4]  child letters, in ascending order
+ * [o + c + 5 .. o + 2c + 4] child offsets, parallel to the letters
+ * <p>
+ * The depths, reachable letters and reachable lexicons summarize the subtree below each node, so
+ * that a search can tell that a subtree is out of its reach before entering it. Reachable letters
+ * are masks over the image's <code>Alphabet</code>. Edges labelled with the trie's
+ * auxiliary letter (the delimiter of a <code>PermutationTrie</code>) are left out of both, since
+ * they do not correspond to a letter that has to be played.
+ * <p>
+ * Shared nodes (see <code>Trie.minimize()</code>) are emitted once, so the image of a minimized
+ * trie is itself a DAG.
+ */
+public final class TrieSnapshot {
+
+  // Returned by getChild() in place of a missing node
+  public static final int NONE = -1;
+
+  // The number of ints preceding a node's child letters
+  private static final int HEADER_LENGTH = 5;
+  // Depths are saturated to fit in half an int
+  private static final int MAXIMUM_DEPTH = 0xFFFF;
+
+  private final IntBuffer nodes;
+  private final int root;
+  private final int nodeCount;
+  private final Alphabet alphabet;
+
+  TrieSnapshot(IntBuffer nodes, int root, int nodeCount, Alphabet alphabet) {
+    this.nodes = nodes;
+    this.root = root;
+    this.nodeCount = nodeCount;
+    this.alphabet = alphabet;
+  }
+
+  /**
+   * Packs the graph reachable from the given root, emitting children before their parents
+   * so that every offset is known by the time it is referenced.
+   *
+   * @param root      the root of the graph to be packed
+   * @param shared    whether the graph may contain nodes reachable through more than one edge
+   * @param alphabet  the letters of the graph, over which reachable letters are recorded
+   * @param auxiliary a letter whose edges are left out of depths and reachable letters, or -1
+   * @return the packed image
+   */
+  static TrieSnapshot compile(TrieNode root, boolean shared, Alphabet alphabet, int auxiliary) {
+    Compiler compiler = new Compiler(shared, alphabet, auxiliary);
+    int rootOffset = compiler.emit(root);
+    return new TrieSnapshot(IntBuffer.wrap(compiler.nodes, 0, compiler.length).slice(), rootOffset, compiler.count, alphabet);
+  }
+
+  /**
+   * @return the letters of this image, numbered densely and followed by the auxiliary letter, if any
+   */
+  public Alphabet getAlphabet() {
+    return this.alphabet;
+  }
+
+  public int getRoot() {
+    return this.root;
+  }
+
+  /**
+   * @return the number of distinct nodes in this image, including the root
+   */
+  public int getNodeCount() {
+    return this.nodeCount;
+  }
+
+  public boolean getTerminal(int node) {
+    return (this.nodes.get(node) & 1) == 1;
+  }
+
+  public int getChildCount(int node) {
+    return this.nodes.get(node) >>> 1;
+  }
+
+  /**
+   * @return the fewest letters that can follow the given node on a path to a terminal node below it,
+   * or 0 if it has no children. Values beyond 65535 are reported as 65535.
+   */
+  public int getMinimumDepth(int node) {
+    return this.nodes.get(node + 1) & MAXIMUM_DEPTH;
+  }
+
+  /**
+   * @return the most letters that can follow the given node on a path to a terminal node below it,
+   * or 0 if it has no children. Values beyond 65535 are reported as 65535.
+   */
+  public int getMaximumDepth(int node) {
+    return this.nodes.get(node + 1) >>> 16;
+  }
+
+  /**
+   * @return the union of the masks (see <code>Alphabet.getMask()</code>) of every letter labelling an
+   * edge below the given node
+   */
+  public long getReachableLetters(int node) {
+    return (this.nodes.get(node + 2) & 0xFFFFFFFFL) | (long) this.nodes.get(node + 3) << 32;
+  }
+
+  /**
+   * @return the lexicons the word ending at the given node belongs to, or 0 if it is not terminal
+   */
+  public int getLexicons(int node) {
+    return this.nodes.get(node + 4) & Trie.ALL_LEXICONS;
+  }
+
+  /**
+   * @return the union of the lexicons of every terminal node strictly below the given node
+   */
+  public int getReachableLexicons(int node) {
+    return this.nodes.get(node + 4) >>> 16;
+  }
+
+  /**
+   * @param node  the offset of the parent node
+   * @param index a value in the range <code>[0, getChildCount(node))</code>
+   * @return the letter of the child at the given index, in ascending letter order
+   */
+  public char getChildLetter(int node, int index) {
+    return (char) this.nodes.get(node + HEADER_LENGTH + index);
+  }
+
+  /**
+   * @param node  the offset of the parent node
+   * @param index a value in the range <code>[0, getChildCount(node))</code>
+   * @return the offset of the child at the given index, in ascending letter order
+   */
+  public int getChildAt(int node, int index) {
+    return this.nodes.get(node + HEADER_LENGTH + this.getChildCount(node) + index);
+  }
+
+  /**
+   * @param node   the offset of the parent node
+   * @param letter the letter labelling the edge to follow
+   * @return the offset of the child reached through the given letter, or <code>NONE</code>
+   */
+  public int getChild(int node, char letter) {
+    IntBuffer nodes = this.nodes;
+    int count = nodes.get(node) >>> 1;
+    int low = node + HEADER_LENGTH;
+    int high = node + HEADER_LENGTH + count - 1;
+    while (low <= high) {
+      int middle = (low + high) >>> 1;
+      int candidate = nodes.get(middle);
+      if (candidate < letter) {
+        low = middle + 1;
+      } else if (candidate > letter) {
+        high = middle - 1;
+      } else {
+        return nodes.get(middle + count);
+      }
+    }
+    return NONE;
+  }
+
+  public boolean contains(String word) {
+    return this.getLexicons(word) != 0;
+  }
+
+  /**
+   * @return the mask of lexicons the given word belongs to, or 0 if it is not contained in this image
+   */
+  public int getLexicons(String word) {
+    int node = this.root;
+    for (int i = 0; i < word.length(); i++) {
+      if ((node = this.getChild(node, word.charAt(i))) == NONE) {
+        return 0;
+      }
+    }
+    return this.getLexicons(node);
+  }
+
+  /**
+   * Checks that the nodes fill the buffer one after another, that every child offset points to a
+   * node laid out before its parent and that the root is the last node, as <code>compile()</code>
+   * leaves them. This reads the whole image once, so that an image from an untrusted source fails
+   * here rather than in the middle of a lookup.
+   *
+   * @return whether the image is laid out as compiled and holds as many nodes as it claims to
+   */
+  boolean isWellFormed() {
+    int length = this.nodes.limit();
+    BitSet starts = new BitSet(length);
+    int count = 0, last = NONE;
+    for (int node = 0; node < length; ) {
+      int childCount = this.getChildCount(node);
+      long end = (long) node + HEADER_LENGTH + 2L * childCount;
+      if (end > length) {
+        return false;
+      }
+      for (int i = 0; i < childCount; i++) {
+        int child = this.getChildAt(node, i);
+        if (child < 0 || child >= node || !starts.get(child)) {
+          return false;
+        }
+      }
+      starts.set(node);
+      count++;
+      last = node;
+      node = (int) end;
+    }
+    return count == this.nodeCount && last == this.root;
+  }
+
+  /**
+   * @return a read-only view of the packed nodes, for persisting this image
+   */
+  IntBuffer getNodes() {
+    return this.nodes.asReadOnlyBuffer();
+  }
+
+  private static final class Compiler {
+
+    private final Map<TrieNode, Integer> emitted;
+    private final Alphabet alphabet;
+    private final int auxiliary;
+    private int[] nodes = new int[1024];
+    private int length = 0;
+    private int count = 0;
+
+    private Compiler(boolean shared, Alphabet alphabet, int auxiliary) {
+      this.emitted = shared ? new IdentityHashMap<>() : null;
+      this.alphabet = alphabet;
+      this.auxiliary = auxiliary;
+    }
+
+    private int emit(TrieNode node) {
+      Integer existing;
+      if (this.emitted != null && (existing = this.emitted.get(node)) != null) {
+        return existing;
+      }
+      int childCount = node.getChildCount();
+      int[] children = new int[childCount];
+      for (int i = 0; i < childCount; i++) {
+        children[i] = this.emit(node.getChildAt(i));
+      }
+
+      int minimumDepth = childCount == 0 ? 0 : MAXIMUM_DEPTH;
+      int maximumDepth = 0;
+      long reachable = 0;
+      int reachableLexicons = 0;
+      for (int i = 0; i < childCount; i++) {
+        int child = children[i];
+        char letter = node.getChildLetter(i);
+        int weight = letter == this.auxiliary ? 0 : 1;
+        int depths = this.nodes[child + 1];
+        // A terminal child ends a path right away, but one that is not must be passed through
+        int childMinimum = (this.nodes[child] & 1) == 1 ? 0 : depths & MAXIMUM_DEPTH;
+        minimumDepth = Math.min(minimumDepth, Math.min(MAXIMUM_DEPTH, weight + childMinimum));
+        maximumDepth = Math.max(maximumDepth, Math.min(MAXIMUM_DEPTH, weight + (depths >>> 16)));
+        reachable |= (this.nodes[child + 2] & 0xFFFFFFFFL) | (long) this.nodes[child + 3] << 32;
+        int childLexicons = this.nodes[child + 4];
+        reachableLexicons |= (childLexicons & Trie.ALL_LEXICONS) | childLexicons >>> 16;
+        if (weight == 1) {
+          reachable |= this.alphabet.getMask(letter);
+        }
+      }
+
+      int offset = this.length;
+      this.ensureCapacity(HEADER_LENGTH + 2 * childCount);
+      this.nodes[offset] = (childCount << 1) | (node.getTerminal() ? 1 : 0);
+      this.nodes[offset + 1] = maximumDepth << 16 | minimumDepth;
+      this.nodes[offset + 2] = (int) reachable;
+      this.nodes[offset + 3] = (int) (reachable >>> 32);
+      this.nodes[offset + 4] = reachableLexicons << 16 | node.getLexicons();
+      for (int i = 0; i < childCount; i++) {
+        this.nodes[offset + HEADER_LENGTH + i] = node.getChildLetter(i);
+        this.nodes[offset + HEADER_LENGTH + childCount + i] = children[i];
+      }
+      this.length += HEADER_LENGTH + 2 * childCount;
+      this.count++;
+
+      if (this.emitted != null) {
+        this.emitted.put(node, offset);
+      }
+      return offset;
+    }
+
+    private void ensureCapacity(int additional) {
+      if (this.length + additional > this.nodes.length) {
+        this.nodes = Arrays.copyOf(this.nodes, Math.max(this.nodes.length * 2, this.length + additional));
+      }
+    }
+
+  }
+
+}
@@ -0,0 +1,166 @@
+package com.swilkins.ScrabbleBase.Vocabulary;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+
+/**
+ * Lazily walks a <code>TrieSnapshot</code> depth-first from a starting node, in ascending letter
+ * order, reporting a word for each terminal node it reaches. The walk keeps an explicit stack of
+ * (node, next child index) pairs and spells every path into a single reusable letter buffer, so
+ * nothing is materialized ahead of the consumer. Subclasses steer the walk through
+ * <code>enter()</code>, which may prune an edge before its subtree is visited, and decide what
+ * (if anything) a terminal node yields through <code>emit()</code>.
+ * <p>
+ * Splitting hands off the upper half of the starting node's children that have not been entered
+ * yet to a fresh copy of the walk, which is enough to let a parallel stream spread a whole trie
+ * across its workers.
+ */
+abstract class TrieWalk implements Spliterator<String> {
+
+  protected final TrieSnapshot snapshot;
+  // The letters of the path from the snapshot root to the current node
+  protected char[] letters;
+  // The number of letters leading up to the starting node
+  private final int base;
+  private final int characteristics;
+  // The exclusive upper bound on the starting node's children this walk will visit
+  private int startLimit;
+  private long estimate;
+  private boolean sized;
+
+  private int depth = 0;
+  private int[] nodes = new int[16];
+  private int[] nextIndices = new int[16];
+
+  /**
+   * @param snapshot        the graph to be walked
+   * @param start           the node at which the walk begins
+   * @param prefix          the letters spelling the path from the root to the starting node
+   * @param estimate        the exact number of words the walk yields if known, otherwise an upper bound
+   * @param sized           whether the estimate is exact
+   * @param characteristics the characteristics of the walk, besides <code>SIZED</code>
+   */
+  protected TrieWalk(TrieSnapshot snapshot, int start, String prefix, long estimate, boolean sized, int characteristics) {
+    this.snapshot = snapshot;
+    this.base = prefix.length();
+    this.letters = Arrays.copyOf(prefix.toCharArray(), this.base + 16);
+    this.characteristics = characteristics;
+    this.startLimit = snapshot.getChildCount(start);
+    this.estimate = estimate;
+    this.sized = sized;
+    this.nodes[0] = start;
+  }
+
+  /**
+   * Called before the walk follows an edge. The letter has already been written to
+   * <code>letters[position]</code>.
+   *
+   * @return whether the subtree below the edge should be visited
+   */
+  protected abstract boolean enter(char letter, int position);
+
+  /**
+   * Called once the subtree below an entered edge has been exhausted, to undo any state
+   * recorded by <code>enter()</code>.
+   */
+  protected void exit(char letter, int position) {
+  }
+
+  /**
+   * @param length the length of the path to the terminal node that has been reached
+   * @return the word to report for the path spelled by the first <code>length</code> letters,
+   * or {@code null} if nothing should be reported
+   */
+  protected String emit(int length) {
+    return new String(this.letters, 0, length);
+  }
+
+  /**
+   * @return a walk identical to this one in its initial state
+   */
+  protected abstract TrieWalk copy();
+
+  @Override
+  public boolean tryAdvance(Consumer<? super String> action) {
+    TrieSnapshot snapshot = this.snapshot;
+    while (this.depth >= 0) {
+      int node = this.nodes[this.depth];
+      int index = this.nextIndices[this.depth];
+      int limit = this.depth == 0 ? this.startLimit : snapshot.getChildCount(node);
+      if (index >= limit) {
+        if (this.depth > 0) {
+          int position = this.base + this.depth - 1;
+          this.exit(this.letters[position], position);
+        }
+        this.depth--;
+        continue;
+      }
+      this.nextIndices[this.depth] = index + 1;
+
+      int position = this.base + this.depth;
+      char letter = snapshot.getChildLetter(node, index);
+      if (position == this.letters.length) {
+        this.letters = Arrays.copyOf(this.letters, position * 2);
+      }
+      this.letters[position] = letter;
+      if (!this.enter(letter, position)) {
+        continue;
+      }
+
+      int child = snapshot.getChildAt(node, index);
+      if (++this.depth == this.nodes.length) {
+        this.nodes = Arrays.copyOf(this.nodes, this.depth * 2);
+        this.nextIndices = Arrays.copyOf(this.nextIndices, this.depth * 2);
+      }
+      this.nodes[this.depth] = child;
+      this.nextIndices[this.depth] = 0;
+      String word;
+      if (snapshot.getTerminal(child) && (word = this.emit(position + 1)) != null) {
+        if (this.estimate > 0) {
+          this.estimate--;
+        }
+        action.accept(word);
+        return true;
+      }
+    }
+    return false;
+  }
+
+  @Override
+  public Spliterator<String> trySplit() {
+    // Only subtrees of the starting node that have not been entered yet can be handed off
+    int from = this.nextIndices[0];
+    if (this.depth < 0 || this.startLimit - from < 2) {
+      return null;
+    }
+    int middle = (from + this.startLimit) >>> 1;
+    TrieWalk split = this.copy();
+    split.nextIndices[0] = middle;
+    split.startLimit = this.startLimit;
+    this.startLimit = middle;
+    this.estimate = split.estimate = this.estimate >>> 1;
+    this.sized = split.sized = false;
+    return split;
+  }
+
+  @Override
+  public long estimateSize() {
+    return this.estimate;
+  }
+
+  @Override
+  public int characteristics() {
+    return this.sized ? this.characteristics | SIZED : this.characteristics;
+  }
+
+  @Override
+  public Comparator<? super String> getComparator() {
+    if ((this.characteristics & SORTED) == 0) {
+      throw new IllegalStateException();
+    }
+    return null;
+  }
+
+}
@@ -0,0 +1,113 @@
+package com.swilkins.ScrabbleBase.Vocabulary;
+
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+/**
+ * A handle to a vocabulary that can be updated while it is being read, for servers that must roll
+ * out new word lists without a restart. Readers call <code>current()</code> and keep the immutable
+ * <code>DictionaryVersion</code> it returns for as long as they need a consistent view (for example
+ * for the duration of one <code>Generator.compute()</code>). Writers edit a private working trie
+ * that no reader ever sees, then publish a freshly captured version with a single atomic swap, so
+ * readers never block and never observe a half-applied change. Superseded versions are reclaimed
+ * once no reader holds them.
+ */
+public class VersionedDictionary {
+
+  // Owned by the writers, who serialize on this handle; never exposed to readers
+  private PermutationTrie working;
+  private final AtomicReference<DictionaryVersion> current = new AtomicReference<>();
+  private long nextVersion = 0;
+
+  /**
+   * @param trie the initial contents, which this handle takes ownership of and which the
+   *             caller should no longer modify directly
+   * @throws IllegalArgumentException if the trie reference is {@code null}
+   */
+  public VersionedDictionary(PermutationTrie trie) throws IllegalArgumentException {
+    this.replace(trie);
+  }
+
+  public VersionedDictionary() {
+    this(new PermutationTrie());
+  }
+
+  /**
+   * @return the most recently published version
+   */
+  public DictionaryVersion current() {
+    return this.current.get();
+  }
+
+  /**
+   * Applies a change to the working trie and publishes the result. Readers holding an earlier
+   * version are unaffected. If the change throws, nothing is published, and the working trie is
+   * restored to the contents of the current version before the exception is rethrown, so that no
+   * part of a failed change is ever published.
+   * <p>
+   * Publishing compiles a snapshot of the whole trie, whose cost grows with the size of the
+   * vocabulary rather than with the size of the change (see <code>Trie.getSnapshot()</code>). Words
+   * that belong together should therefore be added or removed in one update rather than in one
+   * update each. Restoring after a failed change rebuilds the working trie from the current version,
+   * which costs about as much as loading the word list again.
+   *
+   * @param mutation the change, such as adding house-rule words or removing withdrawn ones. The
+   *                 trie it receives must not be retained beyond the call.
+   * @return the newly published version
+   * @throws UnsupportedOperationException if the working trie is read-only (minimized, frozen or
+   *                                       opened from a snapshot), in which case <code>replace()</code>
+   *                                       should be used
+   */
+  public synchronized DictionaryVersion update(Consumer<? super PermutationTrie> mutation) {
+    try {
+      mutation.accept(this.working);
+    } catch (RuntimeException | Error e) {
+      DictionaryVersion current = this.current.get();
+      if (!this.working.isCurrent(current.getSnapshot())) {
+        this.working = restore(current, this.working.validator);
+      }
+      throw e;
+    }
+    return this.publish();
+  }
+
+  /**
+   * Swaps in entirely new contents, such as a freshly loaded official word list, and publishes them.
+   * A minimized trie can never be updated, so it is frozen, which leaves its packed snapshot as the
+   * only copy of the contents in memory.
+   *
+   * @param trie the new contents, which this handle takes ownership of
+   * @return the newly published version
+   * @throws IllegalArgumentException if the trie reference is {@code null}
+   */
+  public synchronized DictionaryVersion replace(PermutationTrie trie) throws IllegalArgumentException {
+    if (trie == null) {
+      throw new IllegalArgumentException();
+    }
+    if (trie.isMinimized()) {
+      trie.freeze();
+    }
+    this.working = trie;
+    return this.publish();
+  }
+
+  // Rebuilds a mutable trie holding the words of the given version, each in the same lexicons
+  private static PermutationTrie restore(DictionaryVersion version, Predicate<String> validator) {
+    PermutationTrie trie = new PermutationTrie(validator, version.getDelimiter());
+    TrieSnapshot snapshot = version.getSnapshot();
+    new WordWalk(snapshot, version.getDelimiter(), version.size()).forEachRemaining(word -> {
+      for (int lexicons = snapshot.getLexicons(word); lexicons != 0; lexicons &= lexicons - 1) {
+        trie.add(word, Integer.numberOfTrailingZeros(lexicons));
+      }
+    });
+    return trie;
+  }
+
+  private DictionaryVersion publish() {
+    DictionaryVersion version = DictionaryVersion.capture(this.working, this.nextVersion++);
+    this.current.set(version);
+    return version;
+  }
+
+}
@@ -0,0 +1,176 @@
+package com.swilkins.ScrabbleBase.Vocabulary;
+
+import java.util.Arrays;
+
+/**
+ * A compiled word pattern made up of literal letters, <code>Trie.ANY_LETTER</code> (exactly one
+ * letter of any kind) and <code>Trie.ANY_LETTERS</code> (any run of letters, possibly empty).
+ * Patterns are matched as a nondeterministic automaton whose set of live states fits in a single
+ * <code>long</code>: bit <code>i</code> is set once the first <code>i</code> elements have been
+ * matched, so stepping one letter forward is a handful of bit operations and a walk can abandon
+ * a subtree as soon as no state survives.
+ */
+final class WordPattern {
+
+  private static final byte LITERAL = 0;
+  private static final byte ANY_LETTER = 1;
+  private static final byte ANY_LETTERS = 2;
+  private static final int MAXIMUM_LENGTH = Long.SIZE - 1;
+
+  static final WordPattern EMPTY = new WordPattern(new char[0], new byte[0]);
+
+  private final char[] letters;
+  private final byte[] kinds;
+  // The elements matching any run of letters, each of which may also be skipped outright
+  private final long runs;
+
+  private WordPattern(char[] letters, byte[] kinds) {
+    if (kinds.length > MAXIMUM_LENGTH) {
+      throw new IllegalArgumentException(String.format("Patterns are limited to %d elements.", MAXIMUM_LENGTH));
+    }
+    this.letters = letters;
+    this.kinds = kinds;
+    long runs = 0;
+    for (int i = 0; i < kinds.length; i++) {
+      if (kinds[i] == ANY_LETTERS) {
+        runs |= 1L << i;
+      }
+    }
+    this.runs = runs;
+  }
+
+  /**
+   * @param pattern letters and wildcards, where adjacent <code>Trie.ANY_LETTERS</code> collapse into one
+   */
+  static WordPattern parse(String pattern) {
+    char[] letters = new char[pattern.length()];
+    byte[] kinds = new byte[pattern.length()];
+    int length = 0;
+    for (int i = 0; i < pattern.length(); i++) {
+      char letter = pattern.charAt(i);
+      byte kind = letter == Trie.ANY_LETTER ? ANY_LETTER : letter == Trie.ANY_LETTERS ? ANY_LETTERS : LITERAL;
+      if (kind == ANY_LETTERS && length > 0 && kinds[length - 1] == ANY_LETTERS) {
+        continue;
+      }
+      letters[length] = letter;
+      kinds[length++] = kind;
+    }
+    return new WordPattern(Arrays.copyOf(letters, length), Arrays.copyOf(kinds, length));
+  }
+
+  /**
+   * @return a pattern matching the given letters verbatim, optionally surrounded by runs of any letters
+   */
+  static WordPattern literal(String text, boolean anyBefore, boolean anyAfter) {
+    int offset = anyBefore ? 1 : 0;
+    // Two adjacent runs around an empty text collapse into one
+    boolean trailing = anyAfter && !(anyBefore && text.isEmpty());
+    int length = offset + text.length() + (trailing ? 1 : 0);
+    char[] letters = new char[length];
+    byte[] kinds = new byte[length];
+    text.getChars(0, text.length(), letters, offset);
+    if (anyBefore) {
+      kinds[0] = ANY_LETTERS;
+    }
+    if (trailing) {
+      kinds[length - 1] = ANY_LETTERS;
+    }
+    return new WordPattern(letters, kinds);
+  }
+
+  int length() {
+    return this.kinds.length;
+  }
+
+  /**
+   * @return the index at which the longest run of literal letters begins (the first, if several
+   * are equally long), or 0 if the pattern contains no literal letters
+   */
+  int getAnchor() {
+    int anchor = 0;
+    int longest = 0;
+    for (int i = 0; i < this.kinds.length; ) {
+      if (this.kinds[i] != LITERAL) {
+        i++;
+        continue;
+      }
+      int end = i;
+      while (end < this.kinds.length && this.kinds[end] == LITERAL) {
+        end++;
+      }
+      if (end - i > longest) {
+        longest = end - i;
+        anchor = i;
+      }
+      i = end;
+    }
+    return anchor;
+  }
+
+  WordPattern slice(int from, int to) {
+    return new WordPattern(Arrays.copyOfRange(this.letters, from, to), Arrays.copyOfRange(this.kinds, from, to));
+  }
+
+  /**
+   * @return a pattern matching exactly the reversals of the words this pattern matches
+   */
+  WordPattern reverse() {
+    int length = this.kinds.length;
+    char[] letters = new char[length];
+    byte[] kinds = new byte[length];
+    for (int i = 0; i < length; i++) {
+      letters[i] = this.letters[length - 1 - i];
+      kinds[i] = this.kinds[length - 1 - i];
+    }
+    return new WordPattern(letters, kinds);
+  }
+
+  long start() {
+    return this.close(1L);
+  }
+
+  /**
+   * @return the states reached from the given states by matching one more letter, or 0 if none
+   */
+  long step(long states, char letter) {
+    long next = 0;
+    for (long pending = states & ~(1L << this.kinds.length); pending != 0; pending &= pending - 1) {
+      int i = Long.numberOfTrailingZeros(pending);
+      byte kind = this.kinds[i];
+      if (kind == ANY_LETTERS) {
+        next |= 1L << i;
+      } else if (kind == ANY_LETTER || this.letters[i] == letter) {
+        next |= 1L << (i + 1);
+      }
+    }
+    return this.close(next);
+  }
+
+  boolean accepts(long states) {
+    return (states >>> this.kinds.length & 1L) != 0;
+  }
+
+  boolean matchesEmpty() {
+    return this.accepts(this.start());
+  }
+
+  boolean matches(char[] text, int from, int to) {
+    long states = this.start();
+    for (int i = from; i < to && states != 0; i++) {
+      states = this.step(states, text[i]);
+    }
+    return this.accepts(states);
+  }
+
+  // Any state sitting before a run of letters may skip that run entirely
+  private long close(long states) {
+    long pending = states & this.runs;
+    while (pending != 0) {
+      int i = Long.numberOfTrailingZeros(pending);
+      states |= 1L << (i + 1);
+      pending = states & this.runs & -(2L << i);
+    }
+    return states;
+  }
+
+}
@@ -0,0 +1,41 @@
+package com.swilkins.ScrabbleBase.Vocabulary;
+
+/**
+ * Reports every word below its starting node, in ascending lexicographic order. Starting at the
+ * root, this is plain iteration over a trie; starting deeper, it answers prefix queries.
+ */
+final class WordWalk extends TrieWalk {
+
+  private static final int CHARACTERISTICS = ORDERED | DISTINCT | SORTED | NONNULL | IMMUTABLE;
+
+  private final int start;
+  private final String prefix;
+  // Edges labelled with this letter lead only to auxiliary paths (PermutationTrie rotations), or -1
+  private final int excluded;
+  private final long initialEstimate;
+  private final boolean initiallySized;
+
+  WordWalk(TrieSnapshot snapshot, int excluded, int size) {
+    this(snapshot, snapshot.getRoot(), "", excluded, size, true);
+  }
+
+  WordWalk(TrieSnapshot snapshot, int start, String prefix, int excluded, long estimate, boolean sized) {
+    super(snapshot, start, prefix, estimate, sized, CHARACTERISTICS);
+    this.start = start;
+    this.prefix = prefix;
+    this.excluded = excluded;
+    this.initialEstimate = estimate;
+    this.initiallySized = sized;
+  }
+
+  @Override
+  protected boolean enter(char letter, int position) {
+    return letter != this.excluded;
+  }
+
+  @Override
+  protected TrieWalk copy() {
+    return new WordWalk(this.snapshot, this.start, this.prefix, this.excluded, this.initialEstimate, this.initiallySized);
+  }
+
+}
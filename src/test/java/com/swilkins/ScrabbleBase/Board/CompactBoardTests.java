@@ -0,0 +1,103 @@
+package com.swilkins.ScrabbleBase.Board;
+
+import com.swilkins.ScrabbleBase.Board.State.BoardLayout;
+import com.swilkins.ScrabbleBase.Board.State.BoardSquare;
+import com.swilkins.ScrabbleBase.Board.State.CompactBoard;
+import com.swilkins.ScrabbleBase.Board.State.Multiplier;
+import com.swilkins.ScrabbleBase.Board.State.Tile;
+import org.junit.Before;
+import org.junit.Test;
+
+import static com.swilkins.ScrabbleBase.Board.Configuration.*;
+import static org.junit.Assert.*;
+
+public class CompactBoardTests {
+  private BoardSquare[][] board;
+
+  @Before
+  public void initializeBoard() {
+    board = getStandardBoard();
+  }
+
+  @Test
+  public void standardLayoutTest() {
+    BoardLayout layout = getStandardLayout();
+    assertSame(layout, getStandardLayout());
+    assertTrue(layout.matches(board));
+    assertEquals(layout, new BoardLayout(board));
+    assertEquals(STANDARD_BOARD_DIMENSIONS, layout.getDimensions());
+
+    int d = STANDARD_BOARD_DIMENSIONS;
+    assertEquals(3, layout.getWordMultiplier(0));
+    assertEquals(2, layout.getWordMultiplier(7 * d + 7));
+    assertEquals(3, layout.getLetterMultiplier(d + 5));
+    assertEquals(1, layout.getLetterMultiplier(d + 4));
+
+    board[0][0] = new BoardSquare(new Multiplier(), null);
+    assertFalse(layout.matches(board));
+  }
+
+  @Test
+  public void roundTripTest() {
+    Tile blank = new Tile(Tile.BLANK, 0, 'q');
+    board[7][7].setTile(getStandardTile('z'));
+    board[7][8].setTile(blank);
+    board[8][7].setTile(getStandardTile('a'));
+
+    CompactBoard compact = CompactBoard.of(board, getStandardLayout());
+    int d = compact.getDimensions();
+    assertEquals('z', compact.getLetter(7 * d + 7));
+    assertEquals(10, compact.getValue(7 * d + 7));
+    assertFalse(compact.isBlank(7 * d + 7));
+    assertEquals('q', compact.getLetter(7 * d + 8));
+    assertEquals(0, compact.getValue(7 * d + 8));
+    assertTrue(compact.isBlank(7 * d + 8));
+    assertTrue(compact.isEmpty(0));
+    assertNull(compact.getTile(0));
+
+    BoardSquare[][] restored = compact.toBoardSquares();
+    for (int y = 0; y < d; y++) {
+      for (int x = 0; x < d; x++) {
+        assertEquals(board[y][x].getMultiplier(), restored[y][x].getMultiplier());
+        assertEquals(board[y][x].getTile(), restored[y][x].getTile());
+      }
+    }
+
+    compact.setTile(8, 7, null);
+    assertTrue(compact.isEmpty(7 * d + 8));
+    assertFalse(compact.isBlank(7 * d + 8));
+  }
+
+  @Test
+  public void bitboardTest() {
+    CompactBoard compact = new CompactBoard(getStandardLayout());
+    for (int x = 5; x <= 9; x++) {
+      compact.setTile(x, 7, getStandardTile('a'));
+    }
+    compact.setTile(14, 8, getStandardTile('a'));
+    compact.setTile(7, 8, getStandardTile('a'));
+
+    assertEquals(0b1111100000L, compact.getRow(7));
+    assertEquals(0b110000000L, compact.getColumn(7));
+    assertEquals(1L << 4 | 1L << 10 | 1L << 14, compact.getHooks(7));
+    // The tile in the last column has no hook past the edge of the board
+    assertEquals(1L << 5 | 1L << 6 | 1L << 8 | 1L << 9 | 1L << 13, compact.getHooks(8));
+    assertEquals(0, compact.getHooks(0));
+
+    assertEquals(5, compact.getRun(5, 7, true, true));
+    assertEquals(3, compact.getRun(7, 7, true, true));
+    assertEquals(3, compact.getRun(7, 7, true, false));
+    assertEquals(2, compact.getRun(7, 7, false, true));
+    assertEquals(1, compact.getRun(14, 8, true, false));
+    assertEquals(0, compact.getRun(4, 7, true, true));
+
+    compact.setTile(14, 8, null);
+    assertEquals(1L << 7, compact.getRow(8));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void oversizeValueTest() {
+    new CompactBoard(getStandardLayout()).setTile(0, 0, new Tile('a', 1000, null));
+  }
+
+}
@@ -1,10 +1,13 @@
 package com.swilkins.ScrabbleBase.Board;
 
 import com.swilkins.ScrabbleBase.Board.State.Rack;
+import com.swilkins.ScrabbleBase.Board.State.RackMultiset;
+import com.swilkins.ScrabbleBase.Board.State.Tile;
 import org.junit.Before;
 import org.junit.Test;
 
 import static com.swilkins.ScrabbleBase.Board.Configuration.STANDARD_RACK_CAPACITY;
+import static com.swilkins.ScrabbleBase.Board.Configuration.getStandardTile;
 import static org.junit.Assert.*;
 
 public class RackTests {
@@ -43,4 +46,30 @@ public class RackTests {
     assertEquals(STANDARD_RACK_CAPACITY, rack.size());
   }
 
+  @Test
+  public void toMultisetTest() {
+    rack.addAllFromLetters("eeeiis*");
+    RackMultiset multiset = rack.toMultiset();
+    assertEquals(7, multiset.size());
+    assertEquals(4, multiset.getKindCount());
+    assertEquals(1, multiset.getBlankCount());
+    assertEquals(6, multiset.getValue());
+
+    int e = multiset.indexOf(getStandardTile('e'));
+    assertEquals(3, multiset.getCount(e));
+    multiset.take(e);
+    assertEquals(2, multiset.getCount(e));
+    assertEquals(6, multiset.size());
+    assertEquals(5, multiset.getValue());
+    multiset.putBack(e);
+    assertEquals(3, multiset.getCount(e));
+    assertEquals(-1, multiset.indexOf(getStandardTile('z')));
+
+    RackMultiset copy = multiset.copy();
+    copy.take(multiset.indexOf(getStandardTile(Tile.BLANK)));
+    assertEquals(0, copy.getBlankCount());
+    assertEquals(1, multiset.getBlankCount());
+    assertEquals(7, rack.size());
+  }
+
 }
@@ -0,0 +1,125 @@
+package com.swilkins.ScrabbleBase.Generation;
+
+import com.swilkins.ScrabbleBase.Board.State.BoardSquare;
+import com.swilkins.ScrabbleBase.Board.State.Tile;
+import com.swilkins.ScrabbleBase.Vocabulary.PermutationTrie;
+
+import java.lang.management.ManagementFactory;
+import java.util.*;
+import java.util.function.LongSupplier;
+
+import static com.swilkins.ScrabbleBase.Board.Configuration.STANDARD_RACK_CAPACITY;
+import static com.swilkins.ScrabbleBase.Generation.Generator.getDefaultOrdering;
+
+/**
+ * Times the generator on a fixed set of mid-game positions, so that a change to the search can be
+ * measured the same way before and after. The positions are taken from turn 4 onwards of six seeded
+ * self-play games, which gives 60 boards and racks. It is not a test, and is run from the test
+ * classpath:
+ * <pre>
+ *   mvn -B test-compile dependency:build-classpath -Dmdep.outputFile=target/classpath.txt
+ *   java -cp target/classes:target/test-classes:$(cat target/classpath.txt) \
+ *     com.swilkins.ScrabbleBase.Generation.GenerationBenchmark [passes] [minimized]
+ * </pre>
+ * Each pass computes every position once. The first passes only warm up the JIT, and the best and
+ * median of the rest are reported, along with what the median pass allocated. With <code>minimized</code>, the dictionary is minimized before
+ * the positions are played.
+ */
+public final class GenerationBenchmark {
+  private static final int WARMUP = 5;
+  private static final int TOP = 10;
+
+  private final Generator generator;
+  private final List<BoardSquare[][]> boards = new ArrayList<>();
+  private final List<LinkedList<Tile>> racks = new ArrayList<>();
+
+  private GenerationBenchmark(boolean minimized) {
+    PermutationTrie trie = new PermutationTrie();
+    trie.loadFrom(GenerationBenchmark.class.getResource("/ospd4.txt"), String::trim);
+    if (minimized) {
+      trie.minimize();
+    }
+    this.generator = new Generator(trie, STANDARD_RACK_CAPACITY);
+    for (int game = 0; game < 6; game++) {
+      SelfPlay.play(this.generator, new Random(game * 31 + 7), 14, (turn, board, rack, result) -> {
+        if (turn >= 4) {
+          this.boards.add(SelfPlay.copy(board));
+          this.racks.add(new LinkedList<>(rack));
+        }
+      });
+    }
+  }
+
+  public static void main(String[] args) {
+    int passes = args.length > 0 ? Integer.parseInt(args[0]) : 20;
+    GenerationBenchmark benchmark = new GenerationBenchmark(args.length > 1 && args[1].equals("minimized"));
+    System.out.printf("%d positions%n", benchmark.boards.size());
+    benchmark.time("compute()", passes, benchmark::compute);
+    benchmark.time("compute() + iteration", passes, benchmark::iterate);
+    benchmark.time("compute() + orderBy()", passes, () -> benchmark.best(false));
+    benchmark.time("computeTopK()", passes, () -> benchmark.best(true));
+  }
+
+  private long compute() {
+    long candidates = 0;
+    for (int i = 0; i < this.boards.size(); i++) {
+      candidates += this.generator.compute(this.racks.get(i), this.boards.get(i)).size();
+    }
+    return candidates;
+  }
+
+  // Builds every candidate, which a packed result otherwise leaves until it is asked for
+  private long iterate() {
+    long candidates = 0;
+    for (int i = 0; i < this.boards.size(); i++) {
+      for (Candidate candidate : this.generator.compute(this.racks.get(i), this.boards.get(i))) {
+        candidates++;
+      }
+    }
+    return candidates;
+  }
+
+  // Finds the best 10 candidates of every position, either by bounded search or by sorting them all
+  private long best(boolean bounded) {
+    long candidates = 0;
+    for (int i = 0; i < this.boards.size(); i++) {
+      GeneratorResult result;
+      if (bounded) {
+        result = this.generator.computeTopK(this.racks.get(i), this.boards.get(i), TOP, getDefaultOrdering());
+      } else {
+        result = this.generator.compute(this.racks.get(i), this.boards.get(i)).orderBy(getDefaultOrdering());
+        for (int k = 0; k < Math.min(TOP, result.size()); k++) {
+          result.get(k);
+        }
+      }
+      candidates += result.size();
+    }
+    return candidates;
+  }
+
+  /**
+   * @param pass runs every position once and returns the number of candidates it kept
+   */
+  private void time(String name, int passes, LongSupplier pass) {
+    long candidates = 0;
+    for (int i = 0; i < WARMUP; i++) {
+      candidates = pass.getAsLong();
+    }
+    com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+    long thread = Thread.currentThread().getId();
+    long[] times = new long[passes];
+    long[] allocated = new long[passes];
+    for (int i = 0; i < passes; i++) {
+      long bytes = threads.getThreadAllocatedBytes(thread);
+      long start = System.nanoTime();
+      pass.getAsLong();
+      times[i] = System.nanoTime() - start;
+      allocated[i] = threads.getThreadAllocatedBytes(thread) - bytes;
+    }
+    Arrays.sort(times);
+    Arrays.sort(allocated);
+    System.out.printf("%-24s %8d candidates  best %7.1f ms  median %7.1f ms  %7.1f MB per pass%n",
+            name, candidates, times[0] / 1e6, times[passes / 2] / 1e6, allocated[passes / 2] / 1e6);
+  }
+
+}
@@ -1,10 +1,15 @@
 package com.swilkins.ScrabbleBase.Generation;
 
+import com.swilkins.ScrabbleBase.Board.State.BoardLayout;
+import com.swilkins.ScrabbleBase.Board.State.BoardSquare;
+import com.swilkins.ScrabbleBase.Board.State.Multiplier;
+import com.swilkins.ScrabbleBase.Generation.Exception.InvalidBoardStateException;
 import com.swilkins.ScrabbleBase.Generation.Exception.UnsetRackCapacityException;
 import com.swilkins.ScrabbleBase.Generation.Exception.UnsetTrieException;
 import com.swilkins.ScrabbleBase.Vocabulary.PermutationTrie;
 import org.junit.Test;
 
+import java.util.Arrays;
 import java.util.LinkedList;
 
 import static com.swilkins.ScrabbleBase.Board.Configuration.STANDARD_RACK_CAPACITY;
@@ -72,6 +77,17 @@ public class GenerationInvalidInputTests {
     generator.compute(new LinkedList<>(), null);
   }
 
+  @Test(expected = InvalidBoardStateException.class)
+  public void oversizeBoardGenerationShouldThrow() {
+    generator = new Generator(new PermutationTrie(), STANDARD_RACK_CAPACITY);
+    int d = BoardLayout.MAX_DIMENSIONS + 1;
+    BoardSquare[][] board = new BoardSquare[d][d];
+    for (BoardSquare[] row : board) {
+      Arrays.fill(row, new BoardSquare(new Multiplier(), null));
+    }
+    generator.compute(new LinkedList<>(), board);
+  }
+
   @Test
   public void nullOrderingReferenceGenerationShouldNotThrow() {
     generator = new Generator(new PermutationTrie(), STANDARD_RACK_CAPACITY);
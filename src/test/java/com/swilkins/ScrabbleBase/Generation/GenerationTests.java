@@ -2,31 +2,48 @@ package com.swilkins.ScrabbleBase.Generation;
 
 import com.swilkins.ScrabbleBase.Board.Location.TilePlacement;
 import com.swilkins.ScrabbleBase.Board.State.BoardSquare;
+import com.swilkins.ScrabbleBase.Board.State.CompactBoard;
 import com.swilkins.ScrabbleBase.Board.State.Rack;
+import com.swilkins.ScrabbleBase.Board.State.RackMultiset;
 import com.swilkins.ScrabbleBase.Board.State.Tile;
+import com.swilkins.ScrabbleBase.Vocabulary.DictionaryVersion;
 import com.swilkins.ScrabbleBase.Vocabulary.PermutationTrie;
+import com.swilkins.ScrabbleBase.Vocabulary.Trie;
+import com.swilkins.ScrabbleBase.Vocabulary.VersionedDictionary;
 import org.junit.Before;
 import org.junit.BeforeClass;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
 import java.net.URL;
-import java.util.ArrayList;
-import java.util.List;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 import static com.swilkins.ScrabbleBase.Board.Configuration.*;
 import static com.swilkins.ScrabbleBase.Generation.Generator.getDefaultOrdering;
-import static org.junit.Assert.assertEquals;
-import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.*;
+import static org.junit.Assume.assumeTrue;
 
 public class GenerationTests {
+  private static URL dictionary;
   private static Generator generator;
   private BoardSquare[][] board;
   private Rack rack;
 
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
   @BeforeClass
   public static void configureGenerator() {
-    URL dictionary = GenerationTests.class.getResource("/ospd4.txt");
+    dictionary = GenerationTests.class.getResource("/ospd4.txt");
     PermutationTrie trie = new PermutationTrie();
     trie.loadFrom(dictionary, String::trim);
     generator = new Generator(trie, STANDARD_RACK_CAPACITY);
@@ -340,4 +357,506 @@ public class GenerationTests {
     assertTrue(matched);
   }
 
-}
\ No newline at end of file
+  @Test
+  public void crossChecksShouldAgreeWithDictionary() {
+    placeRows("slain", "a.x.e", "tower", "e...d", "d.oxo");
+    PermutationTrie trie = generator.getPermutationTrie();
+    DictionaryVersion version = DictionaryVersion.capture(trie, 0);
+    CrossChecks crossChecks = new CrossChecks(CompactBoard.of(board), version.getSnapshot(), version.getAlphabet(),
+            version.getDelimiter(), Trie.ALL_LEXICONS);
+
+    for (int y = 0; y < board.length; y++) {
+      for (int x = 0; x < board.length; x++) {
+        if (board[y][x].getTile() != null) {
+          continue;
+        }
+        for (Direction dir : Direction.primary) {
+          Direction perpendicular = dir.perpendicular();
+          StringBuilder before = new StringBuilder();
+          for (TilePlacement next = perpendicular.inverse().nextTile(x, y, board); next != null;
+               next = perpendicular.inverse().nextTile(next.getX(), next.getY(), board)) {
+            before.insert(0, next.getTile().getResolvedLetter());
+          }
+          StringBuilder after = new StringBuilder();
+          for (TilePlacement next = perpendicular.nextTile(x, y, board); next != null;
+               next = perpendicular.nextTile(next.getX(), next.getY(), board)) {
+            after.append(next.getTile().getResolvedLetter());
+          }
+          for (char letter : trie.getAlphabet()) {
+            boolean expected = before.length() + after.length() == 0 || trie.contains(before.toString() + letter + after);
+            assertEquals(expected, crossChecks.allows(x, y, dir, letter));
+          }
+        }
+      }
+    }
+  }
+
+  @Test
+  public void incrementalScoresShouldMatchFullRescoring() {
+    int positions = 0;
+    for (int game = 0; game < 4; game++) {
+      positions += SelfPlay.play(generator, new Random(game), 12, (turn, board, rack, result) -> {
+        for (Candidate candidate : result) {
+          assertEquals(candidate.toString(), rescore(board, candidate), candidate.getScore());
+        }
+      });
+    }
+    assertTrue(positions > 30);
+  }
+
+  // Spells "braid" across row 7, ending on the centre square
+  private void placeBraid() {
+    board[7][3].setTile(getStandardTile('b'));
+    board[7][4].setTile(getStandardTile('r'));
+    board[7][5].setTile(getStandardTile('a'));
+    board[7][6].setTile(getStandardTile('i'));
+    board[7][7].setTile(getStandardTile('d'));
+  }
+
+  // Places each row from (5, 5) downwards, leaving a square empty for every '.'
+  private void placeRows(String... rows) {
+    for (int y = 0; y < rows.length; y++) {
+      for (int x = 0; x < rows[y].length(); x++) {
+        if (rows[y].charAt(x) != '.') {
+          board[5 + y][5 + x].setTile(getStandardTile(rows[y].charAt(x)));
+        }
+      }
+    }
+  }
+
+  private static int rescore(BoardSquare[][] board, Candidate candidate) {
+    int score = rescore(board, candidate.getPrimary());
+    if (candidate.getCrosses() != null) {
+      for (List<TilePlacement> cross : candidate.getCrosses()) {
+        score += rescore(board, cross);
+      }
+    }
+    return score;
+  }
+
+  // Scores a word from scratch, as every placement was scored before scores were kept incrementally
+  private static int rescore(BoardSquare[][] board, List<TilePlacement> word) {
+    int sum = 0, wordMultiplier = 1, newTiles = 0;
+    for (TilePlacement placement : word) {
+      BoardSquare square = board[placement.getY()][placement.getX()];
+      int value = placement.getTile().getValue();
+      if (square.getTile() != null) {
+        sum += value;
+      } else {
+        newTiles++;
+        sum += value * square.getMultiplier().getLetterValue();
+        wordMultiplier *= square.getMultiplier().getWordValue();
+      }
+    }
+    return sum * wordMultiplier + (newTiles == STANDARD_RACK_CAPACITY ? STANDARD_BINGO : 0);
+  }
+
+  @Test
+  public void everyPlayShouldBeFoundExactlyOnce() {
+    placeRows("slain", "a.x.e", "tower", "e...d", "d.oxo");
+    rack.addAllFromLetters("aenrt");
+
+    int[] reported = new int[1];
+    generator.generate(rack, board, move -> {
+      reported[0]++;
+      return true;
+    });
+    GeneratorResult result = generator.compute(rack, board);
+    assertEquals(result.size(), reported[0]);
+    assertEquals(result.size(), result.asSet().size());
+
+    Set<String> found = new HashSet<>();
+    for (Candidate candidate : result) {
+      assertTrue(found.add(describe(candidate.getPrimary())));
+    }
+    assertEquals(enumeratePlays("aenrt"), found);
+  }
+
+  // Checks a result against the brute-force enumeration of the given letters, and every score against rescoring
+  private void assertPlays(GeneratorResult result, String letters) {
+    Set<String> found = new HashSet<>();
+    for (Candidate candidate : result) {
+      assertTrue(found.add(describe(candidate.getPrimary())));
+      assertEquals(candidate.toString(), rescore(board, candidate), candidate.getScore());
+    }
+    assertFalse(found.isEmpty());
+    assertEquals(enumeratePlays(letters), found);
+  }
+
+  // Every play of the given letters, found by filling every span of every line in every order
+  private Set<String> enumeratePlays(String letters) {
+    PermutationTrie trie = generator.getPermutationTrie();
+    Set<String> plays = new HashSet<>();
+    int d = board.length;
+    for (Direction dir : Direction.primary) {
+      Direction perpendicular = dir.perpendicular();
+      for (int line = 0; line < d; line++) {
+        for (int start = 0; start < d; start++) {
+          for (int end = start + 1; end < d; end++) {
+            List<int[]> empty = new ArrayList<>();
+            boolean touches = false;
+            for (int t = start; t <= end; t++) {
+              int x = dir == Direction.RIGHT ? t : line, y = dir == Direction.RIGHT ? line : t;
+              if (board[y][x].getTile() == null) {
+                empty.add(new int[]{x, y});
+                touches |= perpendicular.nextTile(x, y, board) != null || perpendicular.inverse().nextTile(x, y, board) != null;
+              } else {
+                touches = true;
+              }
+            }
+            int sX = dir == Direction.RIGHT ? start : line, sY = dir == Direction.RIGHT ? line : start;
+            int eX = dir == Direction.RIGHT ? end : line, eY = dir == Direction.RIGHT ? line : end;
+            if (!touches || empty.isEmpty() || empty.size() > letters.length() ||
+                    dir.inverse().nextTile(sX, sY, board) != null || dir.nextTile(eX, eY, board) != null) {
+              continue;
+            }
+            fill(trie, dir, sX, sY, end - start + 1, empty, 0, letters, new char[empty.size()], plays);
+          }
+        }
+      }
+    }
+    return plays;
+  }
+
+  private void fill(PermutationTrie trie, Direction dir, int sX, int sY, int length, List<int[]> empty,
+                    int filled, String letters, char[] chosen, Set<String> plays) {
+    if (filled == empty.size()) {
+      List<TilePlacement> word = new ArrayList<>();
+      for (int i = 0, e = 0; i < length; i++) {
+        int x = sX + i * (dir.nX(0)), y = sY + i * (dir.nY(0));
+        Tile tile = board[y][x].getTile();
+        word.add(tile != null ? new TilePlacement(x, y, tile, true) : new TilePlacement(x, y, getStandardTile(chosen[e++]), false));
+      }
+      if (!trie.contains(spell(word))) {
+        return;
+      }
+      for (int e = 0; e < empty.size(); e++) {
+        int x = empty.get(e)[0], y = empty.get(e)[1];
+        StringBuilder cross = new StringBuilder().append(chosen[e]);
+        Direction perpendicular = dir.perpendicular();
+        for (TilePlacement next = perpendicular.inverse().nextTile(x, y, board); next != null;
+             next = perpendicular.inverse().nextTile(next.getX(), next.getY(), board)) {
+          cross.insert(0, next.getTile().getResolvedLetter());
+        }
+        for (TilePlacement next = perpendicular.nextTile(x, y, board); next != null;
+             next = perpendicular.nextTile(next.getX(), next.getY(), board)) {
+          cross.append(next.getTile().getResolvedLetter());
+        }
+        if (cross.length() > 1 && !trie.contains(cross.toString())) {
+          return;
+        }
+      }
+      plays.add(describe(word));
+      return;
+    }
+    for (int i = 0; i < letters.length(); i++) {
+      if (letters.indexOf(letters.charAt(i)) == i) {
+        chosen[filled] = letters.charAt(i);
+        fill(trie, dir, sX, sY, length, empty, filled + 1, letters.substring(0, i) + letters.substring(i + 1), chosen, plays);
+      }
+    }
+  }
+
+  private static String spell(List<TilePlacement> word) {
+    StringBuilder spelled = new StringBuilder();
+    for (TilePlacement placement : word) {
+      spelled.append(placement.getTile().getResolvedLetter());
+    }
+    return spelled.toString();
+  }
+
+  // Identifies a play by its word and the squares of its first and last letters
+  private static String describe(List<TilePlacement> word) {
+    TilePlacement first = word.get(0), last = word.get(word.size() - 1);
+    return String.format("%s (%d, %d)-(%d, %d)", spell(word), first.getX(), first.getY(), last.getX(), last.getY());
+  }
+
+  @Test
+  public void parallelGenerationShouldMatchSequential() {
+    rack.addAllFromLetters("tieoat*");
+    assertEquals(generator.compute(rack, board).asSet(), generator.computeParallel(rack, board).asSet());
+
+    placeBraid();
+    board[6][7].setTile(getStandardTile('a'));
+    board[8][7].setTile(getStandardTile('e'));
+    ForkJoinPool pool = new ForkJoinPool(4);
+    try {
+      GeneratorResult sequential = generator.compute(rack, board);
+      assertEquals(sequential.asSet(), generator.computeParallel(rack, board, Trie.ALL_LEXICONS, pool).asSet());
+      assertEquals(7, rack.size());
+    } finally {
+      pool.shutdown();
+    }
+  }
+
+  @Test
+  public void topCandidatesShouldLeadTheFullOrdering() {
+    placeBraid();
+    rack.addAllFromLetters("tieoat*");
+
+    GeneratorResult all = generator.compute(rack, board).orderBy(getDefaultOrdering());
+    for (int k : new int[]{1, 10, 250}) {
+      GeneratorResult top = generator.computeTopK(rack, board, k, getDefaultOrdering());
+      assertEquals(k, top.size());
+      for (int i = 0; i < k; i++) {
+        assertEquals(0, getDefaultOrdering().compare(all.get(i), top.get(i)));
+        assertTrue(all.asSet().contains(top.get(i)));
+      }
+    }
+    assertEquals(all.size(), generator.computeTopK(rack, board, Integer.MAX_VALUE, getDefaultOrdering()).size());
+  }
+
+  @Test
+  public void boundedSearchShouldFindTheBestCandidates() {
+    int positions = 0;
+    for (int game = 4; game < 8; game++) {
+      positions += SelfPlay.play(generator, new Random(game), 12, (turn, board, rack, result) -> {
+        GeneratorResult all = result.orderBy(getDefaultOrdering());
+        for (int k : new int[]{1, 5, 20}) {
+          GeneratorResult top = generator.computeTopK(rack, board, k, getDefaultOrdering());
+          assertEquals(Math.min(k, all.size()), top.size());
+          for (int i = 0; i < top.size(); i++) {
+            assertEquals(0, getDefaultOrdering().compare(all.get(i), top.get(i)));
+          }
+        }
+      });
+    }
+    assertTrue(positions > 30);
+  }
+
+  @Test
+  public void boundedSearchShouldPruneMostOfTheSearch() {
+    // Squares visited with no pruning at all, and with k = 1 and k = 10
+    long[] visits = new long[3];
+    for (int game = 0; game < 8; game++) {
+      SelfPlay.play(generator, new Random(game), 12, (turn, board, rack, result) -> {
+        generator.computeTopK(rack, board, Integer.MAX_VALUE, getDefaultOrdering(), n -> visits[0] += n);
+        generator.computeTopK(rack, board, 1, getDefaultOrdering(), n -> visits[1] += n);
+        generator.computeTopK(rack, board, 10, getDefaultOrdering(), n -> visits[2] += n);
+      });
+    }
+    assertTrue(visits[0] > 0);
+    assertTrue(visits[1] < visits[0] / 2);
+    assertTrue(visits[2] < visits[0] * 7 / 10);
+  }
+
+  @Test
+  public void streamedCandidatesShouldMatchComputed() {
+    placeBraid();
+    rack.addAllFromLetters("tieoat*");
+
+    Set<Candidate> streamed = new HashSet<>();
+    generator.generate(rack, board, move -> {
+      Candidate candidate = move.toCandidate();
+      assertEquals(candidate.getScore(), move.getScore());
+      assertEquals(candidate.getDirection(), move.getDirection());
+      assertEquals(candidate.getPrimary().size(), move.size());
+      for (int i = 0; i < move.size(); i++) {
+        assertEquals(candidate.getPrimary().get(i), move.getPlacement(i));
+      }
+      assertEquals(move.getNewTileCount() == STANDARD_RACK_CAPACITY, move.isBingo());
+      streamed.add(candidate);
+      return true;
+    });
+    assertEquals(generator.compute(rack, board).asSet(), streamed);
+  }
+
+  @Test
+  public void packedResultShouldUnpackToStreamedCandidates() {
+    placeBraid();
+    board[7][5].setTile(new Tile(Tile.BLANK, 0, 'a'));
+    rack.addAllFromLetters("tieoat*");
+
+    List<Candidate> streamed = new ArrayList<>();
+    generator.generate(rack, board, move -> streamed.add(move.toCandidate()));
+    CompactBoard compact = CompactBoard.of(board);
+    GeneratorResult result = generator.compute(rack.toMultiset(), compact, Trie.ALL_LEXICONS);
+    // The result must not depend on the board once it has been computed
+    compact.setTile(7, 7, null);
+
+    assertEquals(streamed.size(), result.size());
+    for (int i = 0; i < result.size(); i++) {
+      assertEquals(streamed.get(i), result.get(i));
+      assertEquals(streamed.get(i).getCrosses(), result.get(i).getCrosses());
+      assertSame(result.get(i), result.get(i));
+    }
+    assertEquals(streamed, result.asStream().collect(Collectors.toList()));
+  }
+
+  @Test
+  public void sinkShouldEndTheSearch() {
+    rack.addAllFromLetters("aeinst");
+    rack.addFromLetter(Tile.BLANK);
+    Set<Candidate> all = generator.compute(rack, board).asSet();
+
+    int[] reported = new int[1];
+    List<Candidate> bingos = new ArrayList<>();
+    generator.generate(rack, board, move -> {
+      reported[0]++;
+      if (move.isBingo()) {
+        bingos.add(move.toCandidate());
+        return false;
+      }
+      return true;
+    });
+    assertEquals(1, bingos.size());
+    assertTrue(all.contains(bingos.get(0)));
+    assertTrue(reported[0] < all.size());
+  }
+
+  @Test
+  public void streamingShouldStayWithinAllocationBudget() {
+    // Beyond what a call sets up, nothing is allocated unless a candidate is copied
+    final long budget = 256 * 1024;
+    assumeTrue(ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean);
+    com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+    assumeTrue(threads.isThreadAllocatedMemorySupported() && threads.isThreadAllocatedMemoryEnabled());
+
+    placeRows("slain", "a.x.e", "tower", "e...d", "d.oxo");
+    rack.addAllFromLetters("aeirst");
+    rack.addFromLetter(Tile.BLANK);
+    int[] reported = new int[1];
+    CandidateSink sink = move -> {
+      reported[0] += move.getScore() > 0 ? 1 : 0;
+      return true;
+    };
+    for (int i = 0; i < 3; i++) {
+      generator.generate(rack, board, sink);
+    }
+
+    long thread = Thread.currentThread().getId();
+    long before = threads.getThreadAllocatedBytes(thread);
+    generator.generate(rack, board, sink);
+    long allocated = threads.getThreadAllocatedBytes(thread) - before;
+    assertTrue(reported[0] > 0);
+    assertTrue(allocated + " bytes allocated", allocated < budget);
+  }
+
+  @Test
+  public void multisetRackShouldGenerateEveryPlayOfRepeatedLetters() {
+    placeBraid();
+    rack.addAllFromLetters("eeeiis");
+
+    RackMultiset multiset = rack.toMultiset();
+    assertEquals(6, multiset.size());
+    assertEquals(3, multiset.getCount(multiset.indexOf(getStandardTile('e'))));
+    assertPlays(generator.compute(multiset, board, Trie.ALL_LEXICONS), "eeeiis");
+  }
+
+  @Test
+  public void compactBoardShouldGenerateEveryPlay() {
+    placeBraid();
+    board[7][5].setTile(new Tile(Tile.BLANK, 0, 'a'));
+    rack.addAllFromLetters("aeirst");
+
+    CompactBoard compact = CompactBoard.of(board, getStandardLayout());
+    assertPlays(generator.compute(rack.toMultiset(), compact, Trie.ALL_LEXICONS), "aeirst");
+    assertPlays(generator.compute(rack, compact.toBoardSquares()), "aeirst");
+  }
+
+  @Test
+  public void minimizedTrieShouldGenerateIdenticalCandidates() {
+    PermutationTrie minimized = new PermutationTrie();
+    minimized.loadFrom(dictionary, String::trim);
+    minimized.minimize();
+    Generator minimizedGenerator = new Generator(minimized, STANDARD_RACK_CAPACITY);
+
+    rack.addAllFromLetters("tieoat*");
+    assertEquals(generator.compute(rack, board).asSet(), minimizedGenerator.compute(rack, board).asSet());
+
+    placeBraid();
+    board[6][7].setTile(getStandardTile('a'));
+    board[8][7].setTile(getStandardTile('e'));
+    assertEquals(generator.compute(rack, board).asSet(), minimizedGenerator.compute(rack, board).asSet());
+  }
+
+  @Test
+  public void snapshotTrieShouldGenerateIdenticalCandidates() throws IOException {
+    Path path = folder.newFile("ospd4.trie").toPath();
+    generator.getPermutationTrie().writeSnapshot(path);
+    Generator snapshotGenerator = new Generator(PermutationTrie.openSnapshot(path), STANDARD_RACK_CAPACITY);
+
+    placeBraid();
+    rack.addAllFromLetters("tieoat*");
+    assertEquals(generator.compute(rack, board).asSet(), snapshotGenerator.compute(rack, board).asSet());
+  }
+
+  @Test
+  public void dictionaryUpdatesShouldNotDisturbGeneration() throws InterruptedException {
+    PermutationTrie trie = new PermutationTrie();
+    trie.loadFrom(dictionary, String::trim);
+    VersionedDictionary versioned = new VersionedDictionary(trie);
+    Generator versionedGenerator = new Generator();
+    versionedGenerator.setDictionary(versioned);
+    versionedGenerator.setRackCapacity(STANDARD_RACK_CAPACITY);
+
+    rack.addAllFromLetters("aboride");
+    Set<Candidate> with = versionedGenerator.compute(rack, board).asSet();
+    assertEquals(generator.compute(rack, board).asSet(), with);
+    versioned.update(t -> t.remove("abider"));
+    Set<Candidate> without = versionedGenerator.compute(rack, board).asSet();
+    assertTrue(with.containsAll(without));
+    assertFalse(without.containsAll(with));
+
+    // Each call pins one version, so it must see the word either everywhere or nowhere
+    AtomicBoolean done = new AtomicBoolean(false);
+    Thread writer = new Thread(() -> {
+      for (int i = 0; !done.get(); i++) {
+        boolean restore = i % 2 == 0;
+        versioned.update(t -> {
+          if (restore) {
+            t.add("abider");
+          } else {
+            t.remove("abider");
+          }
+        });
+      }
+    });
+    writer.start();
+    try {
+      for (int i = 0; i < 20; i++) {
+        Set<Candidate> result = versionedGenerator.compute(rack, board).asSet();
+        assertTrue(result.equals(with) || result.equals(without));
+      }
+    } finally {
+      done.set(true);
+      writer.join();
+    }
+  }
+
+  @Test
+  public void lexiconSelectionShouldMatchDedicatedTrie() throws IOException {
+    // Two lists that each leave out a different twentieth of the dictionary
+    List<String> words = Files.readAllLines(Path.of(dictionary.getFile()));
+    PermutationTrie combined = new PermutationTrie();
+    PermutationTrie first = new PermutationTrie();
+    PermutationTrie second = new PermutationTrie();
+    for (int i = 0; i < words.size(); i++) {
+      String word = words.get(i).trim();
+      if (i % 20 != 0) {
+        combined.add(word, 0);
+        first.add(word);
+      }
+      if (i % 20 != 1) {
+        combined.add(word, 1);
+        second.add(word);
+      }
+    }
+    assertTrue(combined.getNodeSize() < first.getNodeSize() * 1.1);
+    Generator combinedGenerator = new Generator(combined, STANDARD_RACK_CAPACITY);
+    Generator firstGenerator = new Generator(first, STANDARD_RACK_CAPACITY);
+    Generator secondGenerator = new Generator(second, STANDARD_RACK_CAPACITY);
+
+    rack.addAllFromLetters("tieoat*");
+    placeBraid();
+    board[6][7].setTile(getStandardTile('a'));
+    board[8][7].setTile(getStandardTile('e'));
+    Set<Candidate> fromFirst = firstGenerator.compute(rack, board).asSet();
+    Set<Candidate> fromSecond = secondGenerator.compute(rack, board).asSet();
+    assertNotEquals(fromFirst, fromSecond);
+    assertEquals(fromFirst, combinedGenerator.compute(rack, board, 0b01).asSet());
+    assertEquals(fromSecond, combinedGenerator.compute(rack, board, 0b10).asSet());
+    assertTrue(combinedGenerator.compute(rack, board, 0b100).isEmpty());
+  }
+
+}
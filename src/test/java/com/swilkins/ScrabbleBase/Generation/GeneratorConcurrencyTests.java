@@ -0,0 +1,116 @@
+package com.swilkins.ScrabbleBase.Generation;
+
+import com.swilkins.ScrabbleBase.Board.State.BoardSquare;
+import com.swilkins.ScrabbleBase.Board.State.Tile;
+import com.swilkins.ScrabbleBase.Vocabulary.PermutationTrie;
+import com.swilkins.ScrabbleBase.Vocabulary.TrieSnapshot;
+import com.swilkins.ScrabbleBase.Vocabulary.VersionedDictionary;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.lang.ref.WeakReference;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static com.swilkins.ScrabbleBase.Board.Configuration.*;
+import static org.junit.Assert.*;
+
+public class GeneratorConcurrencyTests {
+  private static final int THREADS = 16;
+  private static final int CALLS = 240;
+
+  private static Generator generator;
+  private static final List<BoardSquare[][]> boards = new ArrayList<>();
+  private static final List<LinkedList<Tile>> racks = new ArrayList<>();
+  private static final List<Set<Candidate>> expected = new ArrayList<>();
+
+  @BeforeClass
+  public static void collectPositions() {
+    PermutationTrie trie = new PermutationTrie();
+    trie.loadFrom(GeneratorConcurrencyTests.class.getResource("/ospd4.txt"), String::trim);
+    generator = new Generator(trie, STANDARD_RACK_CAPACITY);
+
+    for (int game = 0; game < 2; game++) {
+      SelfPlay.play(generator, new Random(game), 8, (turn, board, rack, result) -> {
+        boards.add(SelfPlay.copy(board));
+        racks.add(new LinkedList<>(rack));
+        expected.add(result.asSet());
+      });
+    }
+  }
+
+  @Test
+  public void concurrentCallsShouldMatchSingleThreadedResults() throws Exception {
+    assertTrue(boards.size() > 8);
+    ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+    try {
+      List<Future<Boolean>> calls = new ArrayList<>(CALLS);
+      for (int i = 0; i < CALLS; i++) {
+        int position = i % boards.size();
+        boolean parallel = i % 5 == 0;
+        calls.add(executor.submit(() -> {
+          // Every call shares the generator and the board, but the rack is the caller's own
+          LinkedList<Tile> rack = new LinkedList<>(racks.get(position));
+          GeneratorResult result = parallel ?
+                  generator.computeParallel(rack, boards.get(position)) :
+                  generator.compute(rack, boards.get(position));
+          return expected.get(position).equals(result.asSet()) && rack.equals(racks.get(position));
+        }));
+      }
+      for (Future<Boolean> call : calls) {
+        assertTrue(call.get());
+      }
+    } finally {
+      executor.shutdown();
+      assertTrue(executor.awaitTermination(1, TimeUnit.MINUTES));
+    }
+  }
+
+  @Test
+  public void sharedRackShouldNotBeDisturbed() throws Exception {
+    LinkedList<Tile> rack = racks.get(0);
+    List<Tile> before = new ArrayList<>(rack);
+    ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+    try {
+      List<Future<Set<Candidate>>> calls = new ArrayList<>();
+      for (int i = 0; i < THREADS; i++) {
+        calls.add(executor.submit(() -> generator.compute(rack, boards.get(0)).asSet()));
+      }
+      for (Future<Set<Candidate>> call : calls) {
+        assertEquals(expected.get(0), call.get());
+      }
+    } finally {
+      executor.shutdown();
+    }
+    assertEquals(before, rack);
+  }
+
+  @Test
+  public void idleThreadShouldNotRetainSupersededVersion() throws Exception {
+    VersionedDictionary dictionary = new VersionedDictionary();
+    dictionary.update(trie -> trie.addAll("tie", "oat", "toe"));
+    Generator versioned = new Generator();
+    versioned.setDictionary(dictionary);
+    versioned.setRackCapacity(STANDARD_RACK_CAPACITY);
+    WeakReference<TrieSnapshot> superseded = new WeakReference<>(dictionary.current().getSnapshot());
+
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    try {
+      LinkedList<Tile> rack = new LinkedList<>(racks.get(0));
+      assertNotNull(executor.submit(() -> versioned.compute(rack, getStandardBoard())).get());
+      dictionary.update(trie -> trie.add("toast"));
+      // The thread that computed stays alive and idle while its old version is collected
+      for (int i = 0; i < 50 && superseded.get() != null; i++) {
+        System.gc();
+        Thread.sleep(10);
+      }
+      assertNull(superseded.get());
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+}
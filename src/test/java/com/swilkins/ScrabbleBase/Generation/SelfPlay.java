@@ -0,0 +1,87 @@
+package com.swilkins.ScrabbleBase.Generation;
+
+import com.swilkins.ScrabbleBase.Board.Location.TilePlacement;
+import com.swilkins.ScrabbleBase.Board.State.BoardSquare;
+import com.swilkins.ScrabbleBase.Board.State.Rack;
+import com.swilkins.ScrabbleBase.Board.State.Tile;
+
+import java.util.*;
+
+import static com.swilkins.ScrabbleBase.Board.Configuration.*;
+import static com.swilkins.ScrabbleBase.Generation.Generator.getDefaultOrdering;
+
+/**
+ * Plays a game of the generator against itself on a standard board, for tests that need a series of
+ * realistic positions. Every turn refills the rack from a shuffled bag and plays the best candidate,
+ * breaking ties by <code>toString()</code> so that a seed always plays the same game.
+ */
+final class SelfPlay {
+
+  interface Turn {
+
+    /**
+     * Called with each position before its best candidate is played. The board and the rack are the
+     * game's own, and change once this returns.
+     */
+    void accept(int turn, BoardSquare[][] board, Rack rack, GeneratorResult result);
+
+  }
+
+  private SelfPlay() {
+  }
+
+  /**
+   * Plays until the given number of turns have passed or a position has no candidates. The last
+   * position is still passed to the callback.
+   *
+   * @return the number of positions that had at least one candidate
+   */
+  static int play(Generator generator, Random random, int turns, Turn callback) {
+    List<Tile> bag = getStandardTileBag();
+    bag.sort(Comparator.comparing(Tile::getLetter));
+    Collections.shuffle(bag, random);
+    BoardSquare[][] board = getStandardBoard();
+    Rack rack = new Rack(STANDARD_RACK_CAPACITY);
+
+    int positions = 0;
+    for (int turn = 0; turn < turns; turn++) {
+      while (!rack.isFull() && !bag.isEmpty()) {
+        rack.add(bag.remove(bag.size() - 1));
+      }
+      GeneratorResult result = generator.compute(rack, board);
+      callback.accept(turn, board, rack, result);
+      if (result.isEmpty()) {
+        break;
+      }
+      positions++;
+
+      Candidate played = result.orderBy(getDefaultOrdering().thenComparing(Candidate::toString)).get(0);
+      for (TilePlacement placement : played.getPrimary()) {
+        if (!placement.getIsExisting()) {
+          board[placement.getY()][placement.getX()].setTile(placement.getTile());
+          for (Iterator<Tile> tiles = rack.iterator(); tiles.hasNext(); ) {
+            if (tiles.next().getLetter() == placement.getTile().getLetter()) {
+              tiles.remove();
+              break;
+            }
+          }
+        }
+      }
+    }
+    return positions;
+  }
+
+  /**
+   * @return a standard board holding the same tiles as the given one
+   */
+  static BoardSquare[][] copy(BoardSquare[][] board) {
+    BoardSquare[][] copy = getStandardBoard();
+    for (int y = 0; y < board.length; y++) {
+      for (int x = 0; x < board.length; x++) {
+        copy[y][x].setTile(board[y][x].getTile());
+      }
+    }
+    return copy;
+  }
+
+}
@@ -0,0 +1,69 @@
+package com.swilkins.ScrabbleBase.Generation;
+
+import com.swilkins.ScrabbleBase.Vocabulary.PermutationTrie;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.zip.GZIPInputStream;
+
+import static com.swilkins.ScrabbleBase.Board.Configuration.STANDARD_RACK_CAPACITY;
+import static org.junit.Assert.*;
+
+/**
+ * Replays three self-play games and compares every candidate of every position against
+ * <code>self-play-candidates.txt.gz</code>, which the generator recorded before any of the search
+ * was reworked. Each position is a <code>POSITION game turn rackSize count</code> line followed by
+ * the <code>toString()</code> of each of its candidates in sorted order.
+ */
+public class SelfPlayCorpusTests {
+  private static Generator generator;
+
+  @BeforeClass
+  public static void configureGenerator() {
+    PermutationTrie trie = new PermutationTrie();
+    trie.loadFrom(SelfPlayCorpusTests.class.getResource("/ospd4.txt"), String::trim);
+    generator = new Generator(trie, STANDARD_RACK_CAPACITY);
+  }
+
+  @Test
+  public void candidatesShouldMatchRecordedCorpus() throws IOException {
+    List<String> expected = new ArrayList<>();
+    try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+            new GZIPInputStream(SelfPlayCorpusTests.class.getResourceAsStream("/self-play-candidates.txt.gz")),
+            StandardCharsets.UTF_8))) {
+      String line;
+      while ((line = reader.readLine()) != null) {
+        expected.add(line);
+      }
+    }
+    List<String> actual = replay();
+
+    for (int i = 0; i < Math.min(expected.size(), actual.size()); i++) {
+      assertEquals("line " + (i + 1), expected.get(i), actual.get(i));
+    }
+    assertEquals(expected.size(), actual.size());
+  }
+
+  private static List<String> replay() {
+    List<String> lines = new ArrayList<>();
+    for (int game = 0; game < 3; game++) {
+      int recorded = game;
+      SelfPlay.play(generator, new Random(game * 31 + 7), 12, (turn, board, rack, result) -> {
+        List<String> candidates = new ArrayList<>();
+        for (Candidate candidate : result) {
+          candidates.add(candidate.toString());
+        }
+        Collections.sort(candidates);
+        lines.add("POSITION " + recorded + " " + turn + " " + rack.size() + " " + candidates.size());
+        lines.addAll(candidates);
+      });
+    }
+    return lines;
+  }
+
+}
@@ -0,0 +1,58 @@
+package com.swilkins.ScrabbleBase.Vocabulary;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class AlphabetTests {
+
+  @Test
+  public void lettersShouldBeNumberedDenselyBeforeSymbols() {
+    Alphabet alphabet = new Alphabet(Arrays.asList('z', 'a', 'm', 'a'), '#', 'm', '#', '_');
+    assertEquals(3, alphabet.getLetterCount());
+    assertEquals(5, alphabet.size());
+    assertEquals("amz#_", new String(new char[]{
+            alphabet.getLetter(0), alphabet.getLetter(1), alphabet.getLetter(2),
+            alphabet.getLetter(3), alphabet.getLetter(4)}));
+    for (int i = 0; i < alphabet.size(); i++) {
+      assertEquals(i, alphabet.indexOf(alphabet.getLetter(i)));
+    }
+    assertTrue(alphabet.isLetter('m'));
+    assertFalse(alphabet.isLetter('#'));
+    assertTrue(alphabet.contains('#'));
+    assertEquals(Alphabet.NONE, alphabet.indexOf('b'));
+    assertEquals(Alphabet.NONE, alphabet.indexOf('￿'));
+    assertEquals(0, alphabet.getMask('b'));
+    assertEquals(0b111, alphabet.getLettersMask());
+  }
+
+  @Test
+  public void addingSymbolsShouldKeepExistingIndices() {
+    Alphabet alphabet = new Alphabet(Arrays.asList('b', 'a'), '#');
+    Alphabet extended = alphabet.withSymbols('_');
+    assertEquals(alphabet.getLetterCount(), extended.getLetterCount());
+    for (int i = 0; i < alphabet.size(); i++) {
+      assertEquals(alphabet.getLetter(i), extended.getLetter(i));
+    }
+    assertEquals(alphabet.size(), extended.indexOf('_'));
+  }
+
+  @Test
+  public void masksShouldShareTheLastBitBeyondCapacity() {
+    List<Character> letters = new ArrayList<>();
+    for (char letter = 0x100; letter < 0x100 + 70; letter++) {
+      letters.add(letter);
+    }
+    Alphabet alphabet = new Alphabet(letters);
+    assertFalse(alphabet.hasExactMasks());
+    assertEquals(1L << 62, alphabet.getMask(alphabet.getLetter(62)));
+    assertEquals(Long.MIN_VALUE, alphabet.getMask(alphabet.getLetter(63)));
+    assertEquals(alphabet.getMask(alphabet.getLetter(63)), alphabet.getMask(alphabet.getLetter(69)));
+    assertEquals(-1L, alphabet.getLettersMask());
+  }
+
+}
@@ -0,0 +1,150 @@
+package com.swilkins.ScrabbleBase.Vocabulary;
+
+import org.junit.BeforeClass;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+import java.util.zip.GZIPOutputStream;
+
+import static com.swilkins.ScrabbleBase.Vocabulary.Trie.LOWERCASE;
+import static org.junit.Assert.*;
+
+public class DictionaryLoaderTests {
+  private static Path dictionary;
+  private static List<String> lines;
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  @BeforeClass
+  public static void resolveDictionary() throws IOException {
+    dictionary = Path.of(DictionaryLoaderTests.class.getResource("/ospd4.txt").getFile());
+    lines = Files.readAllLines(dictionary);
+  }
+
+  private static InputStream of(String contents) {
+    return new ByteArrayInputStream(contents.getBytes(StandardCharsets.UTF_8));
+  }
+
+  @Test
+  public void shouldReportCountsAndThroughput() throws IOException {
+    PermutationTrie trie = new PermutationTrie();
+    LoadStatistics statistics = DictionaryLoader.load(trie, dictionary, null);
+
+    Set<String> distinct = new HashSet<>(lines);
+    assertEquals(lines.size(), statistics.getWords());
+    assertEquals(distinct.size(), statistics.getAdded());
+    assertEquals(lines.size() - distinct.size(), statistics.getDuplicates());
+    assertEquals(0, statistics.getRejected());
+    assertEquals(Files.size(dictionary), statistics.getBytes());
+    assertTrue(statistics.getWordsPerSecond() > 0);
+    assertTrue(statistics.getBytesPerSecond() > 0);
+    assertEquals(distinct.size(), trie.size());
+  }
+
+  @Test
+  public void shouldLoadGzipCompressedSources() throws IOException {
+    ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+    try (OutputStream output = new GZIPOutputStream(compressed)) {
+      Files.copy(dictionary, output);
+    }
+    Trie trie = new Trie(LOWERCASE);
+    LoadStatistics statistics = DictionaryLoader.load(trie, new ByteArrayInputStream(compressed.toByteArray()), null);
+    assertEquals(Files.size(dictionary), statistics.getBytes());
+    assertEquals(new HashSet<>(lines).size(), trie.size());
+    assertTrue(trie.containsAll(lines));
+  }
+
+  @Test
+  public void shouldLoadFromInsideJar() throws IOException {
+    Path jar = folder.newFile("dictionary.jar").toPath();
+    try (JarOutputStream output = new JarOutputStream(Files.newOutputStream(jar))) {
+      output.putNextEntry(new JarEntry("lexicon/ospd4.txt"));
+      Files.copy(dictionary, output);
+      output.closeEntry();
+    }
+    URL entry = new URL("jar:" + jar.toUri() + "!/lexicon/ospd4.txt");
+    PermutationTrie trie = new PermutationTrie();
+    assertTrue(trie.loadFrom(entry, String::trim));
+    assertEquals(new HashSet<>(lines).size(), trie.size());
+  }
+
+  @Test
+  public void shouldSplitLinesRegardlessOfTerminator() throws IOException {
+    Trie trie = new Trie(LOWERCASE);
+    LoadStatistics statistics = DictionaryLoader.load(trie, of("one\r\ntwo\n\nthree\r\n\r\nfour"), null);
+    assertEquals(4, statistics.getWords());
+    assertEquals(4, statistics.getAdded());
+    assertTrue(trie.containsAll("one", "two", "three", "four"));
+  }
+
+  @Test
+  public void shouldRejectInvalidLinesWithoutStopping() throws IOException {
+    Trie trie = new Trie(LOWERCASE);
+    LoadStatistics statistics = DictionaryLoader.load(trie, of("one\nTwo\nthree\n3\none\nfour\n"), null);
+    assertEquals(6, statistics.getWords());
+    assertEquals(3, statistics.getAdded());
+    assertEquals(1, statistics.getDuplicates());
+    assertEquals(2, statistics.getRejected());
+    assertTrue(trie.containsAll("one", "three", "four"));
+  }
+
+  @Test
+  public void shouldApplyTransformerBeforeValidation() throws IOException {
+    Trie trie = new Trie(LOWERCASE);
+    LoadStatistics statistics = DictionaryLoader.load(trie, of("  One \nTWO\n"), s -> s.trim().toLowerCase());
+    assertEquals(2, statistics.getAdded());
+    assertTrue(trie.containsAll("one", "two"));
+  }
+
+  @Test
+  public void shouldDecodeMultiByteCharacters() throws IOException {
+    Trie trie = new Trie();
+    DictionaryLoader.load(trie, of("café\nnaïve\nplain\n"), null);
+    assertEquals(3, trie.size());
+    assertTrue(trie.containsAll("café", "naïve", "plain"));
+  }
+
+  @Test
+  public void shouldHandleLinesLongerThanBuffer() throws IOException {
+    String longWord = "a".repeat(200_000);
+    Trie trie = new Trie();
+    LoadStatistics statistics = DictionaryLoader.load(trie, of("short\n" + longWord + "\nend"), null);
+    assertEquals(3, statistics.getAdded());
+    assertTrue(trie.containsAll("short", longWord, "end"));
+  }
+
+  @Test
+  public void shouldLoadIntoSeparateLexicons() throws IOException {
+    Trie trie = new Trie(LOWERCASE);
+    DictionaryLoader.load(trie, of("one\ntwo\n"), null, 0);
+    LoadStatistics statistics = DictionaryLoader.load(trie, of("two\nthree\n"), null, 1);
+    assertEquals(2, statistics.getAdded());
+    assertEquals(3, trie.size());
+    assertEquals(0b01, trie.getLexicons("one"));
+    assertEquals(0b11, trie.getLexicons("two"));
+    assertEquals(0b10, trie.getLexicons("three"));
+    assertEquals(1, DictionaryLoader.load(trie, of("three\n"), null, 1).getDuplicates());
+  }
+
+  @Test(expected = InvalidTrieSourceException.class)
+  public void missingPathShouldThrow() {
+    new Trie().loadFrom(folder.getRoot().toPath().resolve("missing.txt"), null);
+  }
+
+}
@@ -1,15 +1,18 @@
 package com.swilkins.ScrabbleBase.Vocabulary;
 
-import org.junit.Assert;
-import org.junit.Before;
-import org.junit.BeforeClass;
-import org.junit.Test;
+import org.junit.*;
+import org.junit.rules.TemporaryFolder;
 
 import java.io.BufferedReader;
 import java.io.FileReader;
 import java.io.IOException;
 import java.net.URL;
-import java.util.Set;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.*;
 import java.util.stream.Collectors;
 
 import static com.swilkins.ScrabbleBase.Vocabulary.PermutationTrie.LOWERCASE;
@@ -19,6 +22,9 @@ public class PermutationTrieTests {
   private PermutationTrie trie;
   private static URL dictionary;
 
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
   @BeforeClass
   public static void resolveDictionary() {
     dictionary = PermutationTrieTests.class.getResource("/ospd4.txt");
@@ -159,4 +165,414 @@ public class PermutationTrieTests {
     assertEmpty(trie);
   }
 
+  @Test
+  public void minimizationShouldPreserveContents() {
+    assertTrue(trie.loadFrom(dictionary, String::trim));
+    Set<String> original = trie.stream().collect(Collectors.toSet());
+    int originalNodeSize = trie.getNodeSize();
+
+    assertFalse(trie.isMinimized());
+    int minimizedNodeSize = trie.minimize();
+    assertTrue(trie.isMinimized());
+
+    assertEquals(minimizedNodeSize, trie.getNodeSize());
+    assertTrue(minimizedNodeSize * 10 < originalNodeSize);
+    assertNonZeroSize(trie, original.size());
+    assertTrue(trie.containsAll(original));
+    assertTrue(original.containsAll(trie));
+    assertFalse(trie.contains("caree"));
+    assertEquals(minimizedNodeSize, trie.minimize());
+  }
+
+  @Test
+  public void minimizationShouldShareEquivalentSubtrees() {
+    assertTrue(trie.addAll("cat", "cats", "bat", "bats"));
+    int originalNodeSize = trie.getNodeSize();
+    trie.minimize();
+    assertTrue(trie.getNodeSize() < originalNodeSize);
+    assertSame(trie.getRoot().getChild('c').getChild('a'), trie.getRoot().getChild('b').getChild('a'));
+    assertTrue(trie.containsAll("cat", "cats", "bat", "bats"));
+    assertFalse(trie.contains("ca"));
+    assertFalse(trie.contains("tabs"));
+  }
+
+  @Test
+  public void lexiconMembershipShouldBeTrackedPerWord() {
+    assertTrue(trie.add("cat", 0));
+    assertTrue(trie.add("cat", 2));
+    assertFalse(trie.add("cat", 2));
+    assertTrue(trie.add("dog", 1));
+    assertNonZeroSize(trie, 2);
+    int nodeSize = trie.getNodeSize();
+
+    assertEquals(0b101, trie.getLexicons("cat"));
+    assertEquals(0b010, trie.getLexicons("dog"));
+    assertEquals(0, trie.getLexicons("cow"));
+    assertTrue(trie.contains("cat", 2));
+    assertFalse(trie.contains("cat", 1));
+    // Every rotation of a word carries its lexicons
+    TrieSnapshot snapshot = trie.getSnapshot();
+    int rotation = snapshot.getChild(snapshot.getChild(snapshot.getChild(snapshot.getRoot(), 't'), '#'), 'a');
+    assertEquals(0b101, snapshot.getLexicons(snapshot.getChild(rotation, 'c')));
+    assertEquals(0b111, snapshot.getReachableLexicons(snapshot.getRoot()));
+    assertEquals(0b101, snapshot.getReachableLexicons(snapshot.getChild(snapshot.getRoot(), 'c')));
+
+    assertTrue(trie.remove("cat", 0));
+    assertFalse(trie.remove("cat", 0));
+    assertEquals(0b100, trie.getLexicons("cat"));
+    assertEquals(nodeSize, trie.getNodeSize());
+    assertTrue(trie.remove("cat", 2));
+    assertFalse(trie.contains("cat"));
+    assertNonZeroSize(trie, 1);
+    assertTrue(trie.remove("dog"));
+    assertEmpty(trie);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void outOfRangeLexiconShouldThrow() {
+    trie.add("cat", Trie.MAX_LEXICONS);
+  }
+
+  @Test
+  public void minimizationShouldOnlyShareSubtreesWithSameLexicons() throws IOException {
+    assertTrue(trie.add("cat", 0));
+    assertTrue(trie.add("bat", 1));
+    trie.minimize();
+    assertNotSame(trie.getRoot().getChild('c').getChild('a'), trie.getRoot().getChild('b').getChild('a'));
+    assertEquals(0b01, trie.getLexicons("cat"));
+    assertEquals(0b10, trie.getLexicons("bat"));
+
+    Path path = folder.newFile("lexicons.trie").toPath();
+    trie.writeSnapshot(path);
+    PermutationTrie opened = PermutationTrie.openSnapshot(path);
+    assertEquals(0b01, opened.getLexicons("cat"));
+    assertEquals(0b10, opened.getLexicons("bat"));
+  }
+
+  @Test
+  public void parallelBuildShouldJoinExistingWordsToDefaultLexicon() {
+    assertTrue(trie.add("cat", 3));
+    assertTrue(trie.addAllParallel(Arrays.asList("cat", "dog")));
+    assertEquals(0b1001, trie.getLexicons("cat"));
+    assertEquals(0b0001, trie.getLexicons("dog"));
+    assertNonZeroSize(trie, 2);
+  }
+
+  @Test(expected = UnsupportedOperationException.class)
+  public void minimizedTrieShouldRejectAdditions() {
+    assertTrue(trie.addAll("hello", "world"));
+    trie.minimize();
+    trie.add("worlds");
+  }
+
+  @Test(expected = UnsupportedOperationException.class)
+  public void minimizedTrieShouldRejectRemovals() {
+    assertTrue(trie.addAll("hello", "world"));
+    trie.minimize();
+    trie.remove("world");
+  }
+
+  @Test
+  public void clearingMinimizedTrieRestoresMutability() {
+    assertTrue(trie.addAll("hello", "world"));
+    trie.minimize();
+    trie.clear();
+    assertFalse(trie.isMinimized());
+    assertEmpty(trie);
+    assertTrue(trie.add("hello"));
+    assertNonZeroSize(trie, 1);
+  }
+
+  @Test
+  public void snapshotShouldRoundTrip() throws IOException {
+    assertTrue(trie.loadFrom(dictionary, String::trim));
+    trie.minimize();
+    Path path = folder.newFile("ospd4.trie").toPath();
+    trie.writeSnapshot(path);
+
+    PermutationTrie opened = PermutationTrie.openSnapshot(path);
+    assertEquals(trie.getDelimiter(), opened.getDelimiter());
+    assertEquals(trie.getNodeSize(), opened.getNodeSize());
+    assertEquals(trie.getAlphabet(), opened.getAlphabet());
+    assertTrue(opened.isMinimized());
+    assertTrue(opened.isSnapshot());
+    assertFalse(trie.isSnapshot());
+    assertNonZeroSize(opened, trie.size());
+    assertTrue(opened.containsAll(trie));
+    assertTrue(trie.containsAll(opened));
+    assertFalse(opened.contains(""));
+    assertFalse(opened.contains("caree"));
+  }
+
+  @Test(expected = UnsupportedOperationException.class)
+  public void snapshotShouldHaveNoNodeGraph() throws IOException {
+    assertTrue(trie.add("hello"));
+    Path path = folder.newFile("hello.trie").toPath();
+    trie.writeSnapshot(path);
+    PermutationTrie.openSnapshot(path).getRoot();
+  }
+
+  @Test
+  public void snapshotOfUnminimizedTrieShouldRoundTrip() throws IOException {
+    assertTrue(trie.addAll("hello", "world", "worlds"));
+    Path path = folder.newFile("small.trie").toPath();
+    trie.writeSnapshot(path);
+
+    Trie opened = Trie.openSnapshot(path);
+    assertTrue(opened instanceof PermutationTrie);
+    assertFalse(opened.isMinimized());
+    assertEquals(trie.getNodeSize(), opened.getNodeSize());
+    assertNonZeroSize(opened, 3);
+    assertTrue(opened.containsAll("hello", "world", "worlds"));
+    assertFalse(opened.contains("orlds"));
+  }
+
+  @Test
+  public void snapshotShouldSummarizeSubtrees() throws IOException {
+    assertTrue(trie.addAll("at", "ate", "tea"));
+    Path path = folder.newFile("summary.trie").toPath();
+    trie.writeSnapshot(path);
+
+    for (TrieSnapshot snapshot : Arrays.asList(trie.getSnapshot(), PermutationTrie.openSnapshot(path).getSnapshot())) {
+      // Below "a" lie "at", "ate" and the rotation "a#et" of "tea", whose delimiter is not a letter
+      int node = snapshot.getChild(snapshot.getRoot(), 'a');
+      assertEquals(1, snapshot.getMinimumDepth(node));
+      assertEquals(2, snapshot.getMaximumDepth(node));
+      Alphabet alphabet = snapshot.getAlphabet();
+      assertEquals(3, alphabet.getLetterCount());
+      assertFalse(alphabet.isLetter(trie.getDelimiter()));
+      long expected = alphabet.getMask('t') | alphabet.getMask('e');
+      assertEquals(expected, snapshot.getReachableLetters(node));
+      assertEquals(0, snapshot.getReachableLetters(node) & alphabet.getMask('a'));
+
+      int leaf = snapshot.getChild(snapshot.getChild(node, 't'), 'e');
+      assertEquals(0, snapshot.getMinimumDepth(leaf));
+      assertEquals(0, snapshot.getMaximumDepth(leaf));
+      assertEquals(0, snapshot.getReachableLetters(leaf));
+    }
+  }
+
+  @Test
+  public void frozenTrieShouldKeepOnlyItsSnapshot() throws IOException {
+    assertTrue(trie.addAll("hello", "world", "worlds"));
+    trie.minimize();
+    trie.freeze();
+    assertTrue(trie.isSnapshot());
+    assertTrue(trie.isMinimized());
+    assertNonZeroSize(trie, 3);
+    assertTrue(trie.containsAll("hello", "world", "worlds"));
+    assertFalse(trie.contains("orlds"));
+    try {
+      trie.getRoot();
+      fail();
+    } catch (UnsupportedOperationException ignored) {
+    }
+
+    Path path = folder.newFile("frozen.trie").toPath();
+    trie.writeSnapshot(path);
+    assertTrue(PermutationTrie.openSnapshot(path).containsAll(trie));
+    trie.clear();
+    assertFalse(trie.isSnapshot());
+    assertTrue(trie.add("hello"));
+  }
+
+  @Test(expected = UnsupportedOperationException.class)
+  public void frozenTrieShouldRejectAdditions() {
+    assertTrue(trie.addAll("hello", "world"));
+    trie.freeze();
+    trie.add("worlds");
+  }
+
+  @Test
+  public void clearingOpenedSnapshotRestoresMutability() throws IOException {
+    Trie plain = new Trie(LOWERCASE);
+    assertTrue(plain.addAll("hello", "world"));
+    Path path = folder.newFile("plain.trie").toPath();
+    plain.writeSnapshot(path);
+
+    Trie opened = Trie.openSnapshot(path);
+    assertFalse(opened instanceof PermutationTrie);
+    try {
+      opened.add("worlds");
+      fail();
+    } catch (UnsupportedOperationException ignored) {
+    }
+    opened.clear();
+    assertEmpty(opened);
+    assertTrue(opened.add("worlds"));
+    assertNonZeroSize(opened, 1);
+  }
+
+  @Test(expected = InvalidTrieSourceException.class)
+  public void openingNonSnapshotShouldThrow() throws IOException {
+    Path path = folder.newFile("garbage.trie").toPath();
+    Files.write(path, "hello\nworld\n".getBytes());
+    Trie.openSnapshot(path);
+  }
+
+  @Test
+  public void openingCorruptSnapshotShouldThrow() throws IOException {
+    assertTrue(trie.addAll("hello", "world"));
+    Path path = folder.newFile("corrupt.trie").toPath();
+    trie.writeSnapshot(path);
+    byte[] written = Files.readAllBytes(path);
+    IntBuffer header = ByteBuffer.wrap(written).asIntBuffer();
+    // The root offset follows the six fixed fields and the alphabet's letters and counts
+    int rootIndex = 7 + 2 * header.get(6);
+    int root = header.get(rootIndex);
+    int length = header.get(rootIndex + 2);
+    int rootChildCount = header.get(rootIndex + 3 + root) >>> 1;
+
+    List<byte[]> corruptions = new ArrayList<>();
+    corruptions.add(Arrays.copyOf(written, written.length - Integer.BYTES));
+    corruptions.add(withInt(written, rootIndex, length));
+    corruptions.add(withInt(written, rootIndex + 1, length + 1));
+    // Points the root's first child past the root itself
+    corruptions.add(withInt(written, rootIndex + 3 + root + 5 + rootChildCount, root + 1));
+    for (byte[] corruption : corruptions) {
+      Files.write(path, corruption);
+      try {
+        PermutationTrie.openSnapshot(path);
+        fail();
+      } catch (InvalidTrieSourceException ignored) {
+      }
+    }
+  }
+
+  private static byte[] withInt(byte[] bytes, int index, int value) {
+    byte[] copy = bytes.clone();
+    ByteBuffer.wrap(copy).asIntBuffer().put(index, value);
+    return copy;
+  }
+
+  @Test(expected = InvalidTrieSourceException.class)
+  public void openingPlainSnapshotAsPermutationTrieShouldThrow() throws IOException {
+    Trie plain = new Trie(LOWERCASE);
+    assertTrue(plain.addAll("hello", "world"));
+    Path path = folder.newFile("plain.trie").toPath();
+    plain.writeSnapshot(path);
+    PermutationTrie.openSnapshot(path);
+  }
+
+  @Test
+  public void parallelBuildShouldMatchSequentialBuild() throws IOException {
+    parallelBuildShouldMatchSequentialBuild(new PermutationTrie(), new PermutationTrie());
+  }
+
+  @Test
+  public void parallelBuildOfPlainTrieShouldMatchSequentialBuild() throws IOException {
+    parallelBuildShouldMatchSequentialBuild(new Trie(LOWERCASE), new Trie(LOWERCASE));
+  }
+
+  private void parallelBuildShouldMatchSequentialBuild(Trie sequential, Trie parallel) throws IOException {
+    List<String> words = Files.readAllLines(Path.of(dictionary.getFile()));
+    assertTrue(sequential.loadFrom(dictionary, String::trim));
+    ForkJoinPool pool = new ForkJoinPool(4);
+    try {
+      parallel.addAllParallel(words, pool);
+    } finally {
+      pool.shutdown();
+    }
+    assertNonZeroSize(parallel, sequential.size());
+    assertEquals(sequential.getNodeSize(), parallel.getNodeSize());
+    assertEquals(sequential.alphabet, parallel.alphabet);
+    assertEquals(sequential.getSnapshot().getNodeCount(), parallel.getSnapshot().getNodeCount());
+    assertTrue(parallel.containsAll(sequential));
+    assertTrue(sequential.containsAll(parallel));
+  }
+
+  @Test
+  public void parallelBuildShouldExtendExistingContents() {
+    assertTrue(trie.addAll("hello", "world"));
+    assertFalse(trie.addAllParallel(Arrays.asList("worlds", "world", "a", "Invalid", "hel#lo", "ab", "worlds", "low")));
+    assertNonZeroSize(trie, 6);
+    assertTrue(trie.containsAll("hello", "world", "worlds", "a", "ab", "low"));
+    assertFalse(trie.containsAll("Invalid", "hel#lo", "wor", "lo"));
+
+    PermutationTrie sequential = new PermutationTrie();
+    assertTrue(sequential.addAll("hello", "world", "worlds", "a", "ab", "low"));
+    assertEquals(sequential.getNodeSize(), trie.getNodeSize());
+    assertEquals(sequential.alphabet, trie.alphabet);
+
+    assertTrue(trie.removeAll("hello", "world", "worlds", "a", "ab", "low"));
+    assertEmpty(trie);
+    assertTrue(trie.addAllParallel(Arrays.asList("one", "fish", "two")));
+    assertNonZeroSize(trie, 3);
+  }
+
+  @Test
+  public void concurrentFirstReadsShouldShareOneSnapshot() throws Exception {
+    assertTrue(trie.loadFrom(dictionary, String::trim));
+    int threads = 8;
+    CyclicBarrier start = new CyclicBarrier(threads);
+    ExecutorService executor = Executors.newFixedThreadPool(threads);
+    try {
+      List<Future<TrieSnapshot>> reads = new ArrayList<>();
+      for (int i = 0; i < threads; i++) {
+        reads.add(executor.submit(() -> {
+          start.await();
+          return trie.getSnapshot();
+        }));
+      }
+      for (Future<TrieSnapshot> read : reads) {
+        assertSame(trie.getSnapshot(), read.get());
+      }
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  @Test
+  public void iterationShouldYieldOriginalWordsInLexicographicOrder() throws IOException {
+    assertTrue(trie.loadFrom(dictionary, null));
+    List<String> expected = new ArrayList<>(new TreeSet<>(Files.readAllLines(Path.of(dictionary.getFile()))));
+
+    List<String> iterated = new ArrayList<>();
+    for (String word : trie) {
+      iterated.add(word);
+    }
+    assertEquals(expected, iterated);
+    assertEquals(expected, Arrays.asList(trie.toArray(new String[0])));
+    assertEquals(expected.size(), trie.parallelStream().count());
+    assertEquals(new HashSet<>(expected), trie.parallelStream().collect(Collectors.toSet()));
+  }
+
+  @Test
+  public void spliteratorShouldSplitIntoDisjointSortedRanges() {
+    Trie plain = new Trie(LOWERCASE);
+    assertTrue(plain.addAll("apple", "banana", "cherry", "date", "elder", "fig", "grape", "ant", "bee"));
+    Spliterator<String> first = plain.spliterator();
+    assertTrue(first.hasCharacteristics(Spliterator.SIZED | Spliterator.SORTED | Spliterator.DISTINCT));
+    assertEquals(9, first.getExactSizeIfKnown());
+
+    Spliterator<String> second = first.trySplit();
+    assertNotNull(second);
+    assertFalse(first.hasCharacteristics(Spliterator.SIZED));
+
+    List<String> prefix = new ArrayList<>();
+    List<String> suffix = new ArrayList<>();
+    first.forEachRemaining(prefix::add);
+    second.forEachRemaining(suffix::add);
+    assertFalse(prefix.isEmpty());
+    assertFalse(suffix.isEmpty());
+    assertTrue(prefix.get(prefix.size() - 1).compareTo(suffix.get(0)) < 0);
+
+    List<String> all = new ArrayList<>(prefix);
+    all.addAll(suffix);
+    assertEquals(Arrays.asList("ant", "apple", "banana", "bee", "cherry", "date", "elder", "fig", "grape"), all);
+  }
+
+  @Test
+  public void iterationShouldNotObserveLaterMutations() {
+    assertTrue(trie.addAll("one", "two", "three"));
+    Iterator<String> iterator = trie.iterator();
+    assertEquals("one", iterator.next());
+    trie.add("zebra");
+    trie.remove("two");
+    List<String> remaining = new ArrayList<>();
+    iterator.forEachRemaining(remaining::add);
+    assertEquals(Arrays.asList("three", "two"), remaining);
+    assertEquals(Arrays.asList("one", "three", "zebra"), trie.stream().collect(Collectors.toList()));
+  }
+
 }
@@ -0,0 +1,70 @@
+package com.swilkins.ScrabbleBase.Vocabulary;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class TrieNodeTests {
+  private TrieNode root;
+
+  @Before
+  public void initializeRoot() {
+    root = new TrieNode(TrieNode.ROOT, null, false);
+  }
+
+  @Test
+  public void childrenShouldBeOrderedByLetter() {
+    String letters = "qzamk#x";
+    for (char letter : letters.toCharArray()) {
+      root.addChild(letter, false);
+    }
+    assertEquals(letters.length(), root.getChildCount());
+    for (int i = 1; i < root.getChildCount(); i++) {
+      assertTrue(root.getChildLetter(i - 1) < root.getChildLetter(i));
+    }
+    for (int i = 0; i < root.getChildCount(); i++) {
+      TrieNode child = root.getChildAt(i);
+      assertSame(child, root.getChild(root.getChildLetter(i)));
+      assertEquals(root.getChildLetter(i), child.getLetter());
+      assertSame(root, child.getParent());
+    }
+  }
+
+  @Test
+  public void missingChildrenShouldResolveToNull() {
+    assertNull(root.getChild('a'));
+    root.addChild('b', true);
+    root.addChild('d', false);
+    assertNull(root.getChild('a'));
+    assertNull(root.getChild('c'));
+    assertNull(root.getChild('e'));
+    assertTrue(root.getChild('b').getTerminal());
+    assertFalse(root.getChild('d').getTerminal());
+  }
+
+  @Test
+  public void removalShouldPreserveRemainingChildren() {
+    TrieNode b = root.addChild('b', false);
+    TrieNode a = root.addChild('a', false);
+    TrieNode c = root.addChild('c', false);
+
+    assertSame(b, root.removeChild('b'));
+    assertNull(root.removeChild('b'));
+    assertEquals(2, root.getChildCount());
+    assertSame(a, root.getChild('a'));
+    assertSame(c, root.getChild('c'));
+
+    root.removeChild('a');
+    root.removeChild('c');
+    assertEquals(0, root.getChildCount());
+    assertNull(root.getChild('a'));
+  }
+
+  @Test(expected = Error.class)
+  public void addingDuplicateChildShouldThrow() {
+    root.addChild('a', false);
+    root.addChild('a', true);
+  }
+
+}
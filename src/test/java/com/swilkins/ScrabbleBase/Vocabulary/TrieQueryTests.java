@@ -0,0 +1,136 @@
+package com.swilkins.ScrabbleBase.Vocabulary;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+import static com.swilkins.ScrabbleBase.Vocabulary.Trie.LOWERCASE;
+import static org.junit.Assert.*;
+
+public class TrieQueryTests {
+  private static List<String> words;
+  private static PermutationTrie permutationTrie;
+  private static Trie trie;
+
+  @BeforeClass
+  public static void loadDictionary() throws IOException {
+    Path dictionary = Path.of(TrieQueryTests.class.getResource("/ospd4.txt").getFile());
+    words = Files.readAllLines(dictionary).stream().distinct().sorted().collect(Collectors.toList());
+    permutationTrie = new PermutationTrie();
+    permutationTrie.addAll(words);
+    trie = new Trie(LOWERCASE);
+    trie.addAll(words);
+  }
+
+  private static List<String> expected(Predicate<String> filter) {
+    return words.stream().filter(filter).collect(Collectors.toList());
+  }
+
+  private static List<String> sorted(List<String> results) {
+    List<String> sorted = new ArrayList<>(results);
+    Collections.sort(sorted);
+    return sorted;
+  }
+
+  private static boolean formable(String word, String letters, int blanks) {
+    int[] counts = new int[128];
+    letters.chars().forEach(c -> counts[c]++);
+    for (char letter : word.toCharArray()) {
+      if (counts[letter] > 0) {
+        counts[letter]--;
+      } else if (blanks-- == 0) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  @Test
+  public void prefixQueriesShouldReturnSortedSubtree() {
+    for (Trie t : Arrays.asList(trie, permutationTrie)) {
+      assertEquals(expected(s -> s.startsWith("quo")), t.withPrefix("quo").collect(Collectors.toList()));
+      assertEquals(expected(s -> s.startsWith("cat")), t.withPrefix("cat").collect(Collectors.toList()));
+      assertEquals(words, t.withPrefix("").collect(Collectors.toList()));
+      assertEquals(0, t.withPrefix("qx").count());
+    }
+    assertEquals(0, permutationTrie.withPrefix("at#").count());
+  }
+
+  @Test
+  public void suffixQueriesShouldMatchBruteForce() {
+    for (String suffix : Arrays.asList("ing", "q", "zzes", "cat", "xyzzy")) {
+      List<String> expected = expected(s -> s.endsWith(suffix));
+      assertEquals(expected, sorted(permutationTrie.withSuffix(suffix).collect(Collectors.toList())));
+      assertEquals(expected, trie.withSuffix(suffix).collect(Collectors.toList()));
+    }
+  }
+
+  @Test
+  public void substringQueriesShouldReportEachWordOnce() {
+    for (String infix : Arrays.asList("ana", "qu", "zz", "ss", "ation")) {
+      List<String> expected = expected(s -> s.contains(infix));
+      List<String> actual = permutationTrie.containing(infix).collect(Collectors.toList());
+      assertEquals(expected.size(), actual.size());
+      assertEquals(expected, sorted(actual));
+      assertEquals(expected, trie.containing(infix).collect(Collectors.toList()));
+    }
+    assertEquals(words, sorted(permutationTrie.containing("").collect(Collectors.toList())));
+  }
+
+  @Test
+  public void patternQueriesShouldMatchRegularExpressions() {
+    for (String pattern : Arrays.asList("c?t*", "*ing", "?a?a?a", "*q?*", "b*b*b", "*ss*ss*", "????", "*", "a**z", "cat")) {
+      String regex = pattern.replace("?", ".").replace("*", ".*");
+      List<String> expected = expected(s -> s.matches(regex));
+      List<String> actual = permutationTrie.matching(pattern).collect(Collectors.toList());
+      assertEquals(pattern, expected.size(), actual.size());
+      assertEquals(pattern, expected, sorted(actual));
+      assertEquals(pattern, expected, trie.matching(pattern).collect(Collectors.toList()));
+    }
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void overlongPatternsShouldThrow() {
+    trie.matching("?".repeat(64));
+  }
+
+  @Test
+  public void formableQueriesShouldRespectLetterCounts() {
+    for (int blanks = 0; blanks <= 2; blanks++) {
+      int b = blanks;
+      List<String> expected = expected(s -> formable(s, "retains", b));
+      assertEquals(expected, permutationTrie.formableFrom("retains", blanks).collect(Collectors.toList()));
+      assertEquals(expected, trie.formableFrom("retains", blanks).collect(Collectors.toList()));
+    }
+    assertTrue(permutationTrie.formableFrom("", 2).allMatch(s -> s.length() <= 2));
+    assertTrue(permutationTrie.formableFrom("stare", 0).collect(Collectors.toSet()).containsAll(Arrays.asList("tears", "rates", "aster", "tea")));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void negativeBlanksShouldThrow() {
+    trie.formableFrom("abc", -1);
+  }
+
+  @Test
+  public void limitedQueriesShouldStopEarly() {
+    assertEquals(Arrays.asList("aa", "aah", "aahed"), trie.matching("*").limit(3).collect(Collectors.toList()));
+    assertEquals(5, permutationTrie.containing("e").limit(5).count());
+    assertEquals(expected(s -> s.startsWith("ab")).subList(0, 4), permutationTrie.withPrefix("ab").limit(4).collect(Collectors.toList()));
+  }
+
+  @Test
+  public void queriesShouldRunOnSnapshots() {
+    PermutationTrie minimized = new PermutationTrie();
+    minimized.addAll(words.subList(0, 5000));
+    minimized.minimize();
+    assertEquals(words.subList(0, 5000).stream().filter(s -> s.endsWith("ed")).collect(Collectors.toList()),
+            sorted(minimized.withSuffix("ed").collect(Collectors.toList())));
+  }
+
+}
@@ -0,0 +1,134 @@
+package com.swilkins.ScrabbleBase.Vocabulary;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.*;
+
+public class VersionedDictionaryTests {
+  private VersionedDictionary dictionary;
+
+  @Before
+  public void initializeDictionary() {
+    dictionary = new VersionedDictionary();
+  }
+
+  @Test
+  public void publishedVersionsShouldNotChange() {
+    DictionaryVersion initial = dictionary.current();
+    DictionaryVersion updated = dictionary.update(trie -> trie.addAll("hello", "world"));
+    DictionaryVersion removed = dictionary.update(trie -> trie.remove("hello"));
+
+    assertTrue(initial.isEmpty());
+    assertFalse(initial.contains("hello"));
+    assertEquals(2, updated.size());
+    assertTrue(updated.contains("hello") && updated.contains("world"));
+    assertEquals(1, removed.size());
+    assertFalse(removed.contains("hello"));
+    assertSame(removed, dictionary.current());
+    assertTrue(initial.getVersion() < updated.getVersion() && updated.getVersion() < removed.getVersion());
+    assertFalse(updated.getAlphabet().isLetter(updated.getDelimiter()));
+  }
+
+  @Test
+  public void replacingShouldPublishNewContents() {
+    dictionary.update(trie -> trie.add("hello"));
+    PermutationTrie replacement = new PermutationTrie();
+    replacement.addAll("other", "words");
+    replacement.minimize();
+
+    DictionaryVersion version = dictionary.replace(replacement);
+    assertTrue(replacement.isSnapshot());
+    assertEquals(2, version.size());
+    assertFalse(version.contains("hello"));
+    assertTrue(version.contains("other"));
+  }
+
+  @Test
+  public void failedUpdateShouldPublishNothing() {
+    DictionaryVersion before = dictionary.update(trie -> trie.add("hello"));
+    try {
+      dictionary.update(trie -> {
+        throw new IllegalStateException();
+      });
+      fail();
+    } catch (IllegalStateException ignored) {
+    }
+    assertSame(before, dictionary.current());
+  }
+
+  @Test
+  public void partiallyAppliedUpdateShouldNeverBePublished() {
+    dictionary.update(trie -> {
+      trie.addAll("hello", "world");
+      trie.add("house", 1);
+    });
+    try {
+      dictionary.update(trie -> {
+        trie.add("partial");
+        trie.remove("world");
+        throw new IllegalStateException();
+      });
+      fail();
+    } catch (IllegalStateException ignored) {
+    }
+
+    DictionaryVersion next = dictionary.update(trie -> trie.add("next"));
+    assertEquals(4, next.size());
+    assertFalse(next.contains("partial"));
+    assertTrue(next.contains("world") && next.contains("hello") && next.contains("next"));
+    assertEquals(1 << 1, next.getSnapshot().getLexicons("house"));
+  }
+
+  @Test(expected = UnsupportedOperationException.class)
+  public void updatingReadOnlyTrieShouldThrow() {
+    PermutationTrie minimized = new PermutationTrie();
+    minimized.add("hello");
+    minimized.minimize();
+    dictionary.replace(minimized);
+    dictionary.update(trie -> trie.add("world"));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void replacingWithNullShouldThrow() {
+    dictionary.replace(null);
+  }
+
+  @Test
+  public void readersShouldOnlyObservePublishedVersions() throws InterruptedException {
+    List<String> words = new ArrayList<>();
+    for (char a = 'a'; a <= 'z'; a++) {
+      for (char b = 'a'; b <= 'z'; b++) {
+        words.add("" + a + b + "s");
+      }
+    }
+    AtomicReference<Throwable> failure = new AtomicReference<>();
+    Thread reader = new Thread(() -> {
+      try {
+        long last = -1;
+        while (last < words.size()) {
+          DictionaryVersion version = dictionary.current();
+          assertTrue(version.getVersion() >= last);
+          last = version.getVersion();
+          // Words are published one at a time and in order, so each version holds exactly a prefix of them
+          for (int i = 0; i < words.size(); i++) {
+            assertEquals(i < version.size(), version.contains(words.get(i)));
+          }
+        }
+      } catch (Throwable t) {
+        failure.set(t);
+      }
+    });
+    reader.start();
+    for (String word : words) {
+      dictionary.update(trie -> trie.add(word));
+    }
+    reader.join();
+    assertNull(failure.get());
+  }
+
+}